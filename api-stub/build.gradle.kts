@@ -0,0 +1,22 @@
+plugins {
+    application
+}
+
+group = rootProject.group
+version = rootProject.version
+
+java {
+    toolchain.languageVersion = JavaLanguageVersion.of(21)
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation("com.google.code.gson:gson:2.10.1")
+}
+
+application {
+    mainClass = "net.craftportal.stub.ApiStubServer"
+}
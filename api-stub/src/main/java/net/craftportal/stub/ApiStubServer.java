@@ -0,0 +1,214 @@
+package net.craftportal.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the OPSucht and record APIs, serving the recorded fixtures with ETags and
+ * gzip like the real services, plus configurable latency, 5xx errors and 429s.
+ *
+ * <p>Start it with {@code ./gradlew :api-stub:run --args="--port 8089 --latency 150"} and set the
+ * addon's API base URL to {@code http://localhost:8089} and the record URL to
+ * {@code http://localhost:8089/api/opsucht-record}. At runtime:
+ * <ul>
+ *   <li>{@code /_stub/config?latency=..&jitter=..&error-rate=..&rate-limit-rate=..&retry-after=..
+ *   &payload-scale=..} changes the fault profile and shows the current one,</li>
+ *   <li>{@code /_stub/churn} changes one auction bid and one price,</li>
+ *   <li>{@code /_stub/stats} shows request counters.</li>
+ * </ul>
+ */
+public final class ApiStubServer {
+
+  private final HttpServer server;
+  private final FaultProfile profile;
+  private final StubData data = new StubData();
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder notModified = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder rateLimited = new LongAdder();
+  private final LongAdder bytesSent = new LongAdder();
+
+  public ApiStubServer(int port, FaultProfile profile) throws IOException {
+    this.profile = profile;
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+    this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    this.server.createContext("/", this::handle);
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = 8089;
+    FaultProfile profile = new FaultProfile();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String name = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+      if ("port".equals(name)) {
+        port = Integer.parseInt(args[i + 1]);
+      } else if (!profile.set(name, args[i + 1])) {
+        throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+
+    ApiStubServer stub = new ApiStubServer(port, profile);
+    stub.start();
+    System.out.println("OPSucht API stub on http://localhost:" + port + " " + profile.toJson());
+  }
+
+  public void start() {
+    this.server.start();
+  }
+
+  public void stop() {
+    this.server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String path = exchange.getRequestURI().getPath();
+      if (path.startsWith("/_stub/")) {
+        handleControl(exchange, path);
+        return;
+      }
+
+      this.requests.increment();
+      sleep(this.profile.nextDelayMs());
+
+      if (this.profile.rateLimitNow()) {
+        this.rateLimited.increment();
+        exchange.getResponseHeaders().set("Retry-After",
+            Integer.toString(this.profile.retryAfterSeconds));
+        exchange.sendResponseHeaders(429, -1);
+        return;
+      }
+      if (this.profile.failNow()) {
+        this.errors.increment();
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+
+      StubData.Body body = route(path);
+      if (body == null) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      sendBody(exchange, body);
+    }
+  }
+
+  private StubData.Body route(String path) {
+    int scale = this.profile.payloadScale;
+    if (path.equals("/market/prices")) {
+      return this.data.marketPrices(scale);
+    }
+    if (path.startsWith("/market/price/")) {
+      return this.data.marketPrice(path.substring("/market/price/".length()));
+    }
+    if (path.equals("/auctions/active")) {
+      return this.data.auctions(null, scale);
+    }
+    if (path.startsWith("/auctions/categories/")) {
+      return this.data.auctions(path.substring("/auctions/categories/".length()), scale);
+    }
+    if (path.equals("/api/opsucht-record")) {
+      return this.data.record();
+    }
+    return null;
+  }
+
+  private void sendBody(HttpExchange exchange, StubData.Body body) throws IOException {
+    exchange.getResponseHeaders().set("ETag", body.etag());
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    if (body.etag().equals(ifNoneMatch)) {
+      this.notModified.increment();
+      exchange.sendResponseHeaders(304, -1);
+      return;
+    }
+
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    byte[] bytes = body.json();
+    if (acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip")) {
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      bytes = body.gzip();
+    }
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+    this.bytesSent.add(bytes.length);
+  }
+
+  private void handleControl(HttpExchange exchange, String path) throws IOException {
+    String response;
+    int status = 200;
+    switch (path) {
+      case "/_stub/config":
+        try {
+          applyQuery(exchange.getRequestURI().getRawQuery());
+          response = this.profile.toJson();
+        } catch (IllegalArgumentException e) {
+          status = 400;
+          response = "{\"error\":\"" + e.getMessage().replace("\"", "'") + "\"}";
+        }
+        break;
+      case "/_stub/churn":
+        this.data.churn();
+        response = "{\"version\":" + this.data.version() + "}";
+        break;
+      case "/_stub/stats":
+        response = "{\"requests\":" + this.requests.sum()
+            + ",\"notModified\":" + this.notModified.sum()
+            + ",\"errors\":" + this.errors.sum()
+            + ",\"rateLimited\":" + this.rateLimited.sum()
+            + ",\"bytesSent\":" + this.bytesSent.sum()
+            + ",\"version\":" + this.data.version() + "}";
+        break;
+      default:
+        status = 404;
+        response = "{}";
+        break;
+    }
+
+    byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private void applyQuery(String query) {
+    if (query == null || query.isEmpty()) {
+      return;
+    }
+    for (String pair : query.split("&")) {
+      int separator = pair.indexOf('=');
+      if (separator <= 0) {
+        continue;
+      }
+      String name = URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8);
+      String value = URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+      if (!this.profile.set(name, value)) {
+        throw new IllegalArgumentException("Unknown option " + name);
+      }
+    }
+  }
+
+  private static void sleep(long millis) {
+    if (millis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
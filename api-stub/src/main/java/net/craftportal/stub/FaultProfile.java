@@ -0,0 +1,75 @@
+package net.craftportal.stub;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What the stub does to each request: how long it waits and how often it fails. Values can be set
+ * from command line options at start-up and changed at runtime through {@code /_stub/config}.
+ */
+final class FaultProfile {
+
+  volatile long latencyMs;
+  volatile long jitterMs;
+  volatile double errorRate;
+  volatile double rateLimitRate;
+  volatile int retryAfterSeconds = 5;
+  volatile int payloadScale = 1;
+
+  /**
+   * Applies one option by name; returns {@code false} for unknown names.
+   */
+  boolean set(String name, String value) {
+    switch (name) {
+      case "latency":
+        this.latencyMs = Long.parseLong(value);
+        return true;
+      case "jitter":
+        this.jitterMs = Long.parseLong(value);
+        return true;
+      case "error-rate":
+        this.errorRate = rate(value);
+        return true;
+      case "rate-limit-rate":
+        this.rateLimitRate = rate(value);
+        return true;
+      case "retry-after":
+        this.retryAfterSeconds = Integer.parseInt(value);
+        return true;
+      case "payload-scale":
+        this.payloadScale = Math.max(1, Integer.parseInt(value));
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  long nextDelayMs() {
+    long jitter = this.jitterMs > 0 ? ThreadLocalRandom.current().nextLong(this.jitterMs + 1) : 0;
+    return this.latencyMs + jitter;
+  }
+
+  boolean rateLimitNow() {
+    return ThreadLocalRandom.current().nextDouble() < this.rateLimitRate;
+  }
+
+  boolean failNow() {
+    return ThreadLocalRandom.current().nextDouble() < this.errorRate;
+  }
+
+  String toJson() {
+    return String.format(Locale.ROOT,
+        "{\"latency\":%d,\"jitter\":%d,\"error-rate\":%s,\"rate-limit-rate\":%s,"
+            + "\"retry-after\":%d,\"payload-scale\":%d}",
+        this.latencyMs, this.jitterMs, this.errorRate, this.rateLimitRate,
+        this.retryAfterSeconds, this.payloadScale);
+  }
+
+  private static double rate(String value) {
+    double rate = Double.parseDouble(value);
+    if (rate < 0.0 || rate > 1.0) {
+      throw new IllegalArgumentException("Rate must be between 0 and 1: " + value);
+    }
+    return rate;
+  }
+}
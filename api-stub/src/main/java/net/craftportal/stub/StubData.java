@@ -0,0 +1,194 @@
+package net.craftportal.stub;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The recorded fixtures plus everything derived from them: category subsets, single items, scaled
+ * up payloads. Every body is rendered once per data version and kept together with its gzip
+ * variant and ETag. {@link #churn()} changes a few values and starts a new version, so clients see
+ * real updates and 304s stop matching.
+ */
+final class StubData {
+
+  static final String MARKET_PRICES = "/fixtures/market-prices.json";
+  static final String AUCTIONS_ACTIVE = "/fixtures/auctions-active.json";
+  static final String RECORD = "/fixtures/opsucht-record.json";
+
+  private static final List<String> AUCTION_CATEGORIES =
+      List.of("blocks", "items", "custom_items", "op_items", "spawner");
+
+  record Body(byte[] json, byte[] gzip, String etag) {}
+
+  private final JsonObject prices;
+  private final JsonArray auctions;
+  private final JsonElement record;
+  private final Map<String, Body> rendered = new ConcurrentHashMap<>();
+  private final Random random = new Random(18);
+  private volatile int version;
+
+  StubData() {
+    this.prices = parse(MARKET_PRICES).getAsJsonObject();
+    this.auctions = parse(AUCTIONS_ACTIVE).getAsJsonArray();
+    this.record = parse(RECORD);
+  }
+
+  Body marketPrices(int scale) {
+    return render("prices:" + scale, () -> {
+      if (scale <= 1) {
+        return this.prices;
+      }
+      JsonObject scaled = new JsonObject();
+      for (Map.Entry<String, JsonElement> category : this.prices.entrySet()) {
+        JsonObject items = new JsonObject();
+        for (Map.Entry<String, JsonElement> item : category.getValue().getAsJsonObject()
+            .entrySet()) {
+          items.add(item.getKey(), item.getValue());
+          for (int copy = 1; copy < scale; copy++) {
+            items.add(item.getKey() + "_" + copy, item.getValue());
+          }
+        }
+        scaled.add(category.getKey(), items);
+      }
+      return scaled;
+    });
+  }
+
+  /**
+   * The orders of one item, or {@code null} if the fixture does not know it.
+   */
+  Body marketPrice(String itemId) {
+    for (Map.Entry<String, JsonElement> category : this.prices.entrySet()) {
+      for (Map.Entry<String, JsonElement> item : category.getValue().getAsJsonObject()
+          .entrySet()) {
+        if (item.getKey().equalsIgnoreCase(itemId)) {
+          return render("price:" + item.getKey(), item::getValue);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Auctions of one category ({@code null} for all active auctions), or {@code null} for an
+   * unknown category.
+   */
+  Body auctions(String category, int scale) {
+    if (category != null && !AUCTION_CATEGORIES.contains(category)) {
+      return null;
+    }
+    return render("auctions:" + category + ":" + scale, () -> {
+      JsonArray result = new JsonArray();
+      for (int copy = 0; copy < scale; copy++) {
+        for (JsonElement element : this.auctions) {
+          JsonObject auction = element.getAsJsonObject();
+          if (category != null && !category.equals(categoryOf(auction))) {
+            continue;
+          }
+          if (copy > 0) {
+            auction = auction.deepCopy();
+            auction.addProperty("id", auction.get("id").getAsString() + "-" + copy);
+          }
+          result.add(auction);
+        }
+      }
+      return result;
+    });
+  }
+
+  Body record() {
+    return render("record", () -> this.record);
+  }
+
+  int version() {
+    return this.version;
+  }
+
+  /**
+   * Raises one auction bid and moves one market price, then invalidates every rendered body.
+   */
+  synchronized void churn() {
+    JsonObject auction = this.auctions.get(this.random.nextInt(this.auctions.size()))
+        .getAsJsonObject();
+    double bid = auction.get("currentBid").getAsDouble();
+    auction.addProperty("currentBid", Math.round(bid * 1.05 * 100.0) / 100.0);
+
+    List<String> categories = List.copyOf(this.prices.keySet());
+    JsonObject items = this.prices.getAsJsonObject(
+        categories.get(this.random.nextInt(categories.size())));
+    List<String> itemIds = List.copyOf(items.keySet());
+    JsonArray orders = items.getAsJsonArray(itemIds.get(this.random.nextInt(itemIds.size())));
+    if (!orders.isEmpty()) {
+      JsonObject order = orders.get(0).getAsJsonObject();
+      double price = order.get("price").getAsDouble();
+      order.addProperty("price", Math.round(price * (0.9 + this.random.nextDouble() * 0.2) * 100.0)
+          / 100.0);
+    }
+
+    this.version++;
+    this.rendered.clear();
+  }
+
+  private static String categoryOf(JsonObject auction) {
+    JsonObject item = auction.getAsJsonObject("item");
+    String material = item.get("material").getAsString();
+    if (material.endsWith("SPAWNER")) {
+      return "spawner";
+    }
+    if (item.has("displayName") && !item.get("displayName").isJsonNull()) {
+      return "custom_items";
+    }
+    if (item.has("enchantments") && !item.getAsJsonObject("enchantments").isEmpty()) {
+      return "op_items";
+    }
+    return Math.floorMod(material.hashCode(), 2) == 0 ? "blocks" : "items";
+  }
+
+  private Body render(String key, Supplier<JsonElement> content) {
+    int current = this.version;
+    return this.rendered.computeIfAbsent(key + "@" + current, ignored -> {
+      byte[] json;
+      synchronized (this) {
+        json = content.get().toString().getBytes(StandardCharsets.UTF_8);
+      }
+      String etag = "\"" + Integer.toHexString(key.hashCode()) + "-" + current + "\"";
+      return new Body(json, gzip(json), etag);
+    });
+  }
+
+  private static byte[] gzip(byte[] json) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static JsonElement parse(String name) {
+    InputStream stream = StubData.class.getResourceAsStream(name);
+    if (stream == null) {
+      throw new IllegalStateException("Missing fixture " + name);
+    }
+    try (InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+      return JsonParser.parseReader(reader);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = rootProject.group
+version = rootProject.version
+
+java {
+    toolchain.languageVersion = JavaLanguageVersion.of(21)
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":core"))
+    // The recorded API fixtures live with the stub server.
+    jmh(project(":api-stub"))
+    jmh("com.google.code.gson:gson:2.10.1")
+}
+
+// ./gradlew :benchmarks:jmh writes build/results/jmh/results-<version>.json; keep the file of each
+// release to compare against (e.g. with jmh.morethan.io).
+jmh {
+    jmhVersion = "1.37"
+    warmupIterations = 3
+    warmup = "1s"
+    iterations = 5
+    timeOnIteration = "1s"
+    fork = 1
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results-${project.version}.json")
+}
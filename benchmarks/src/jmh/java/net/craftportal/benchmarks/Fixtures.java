@@ -0,0 +1,25 @@
+package net.craftportal.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+public final class Fixtures {
+
+  public static final String MARKET_PRICES = "/fixtures/market-prices.json";
+  public static final String AUCTIONS_ACTIVE = "/fixtures/auctions-active.json";
+
+  private Fixtures() {
+  }
+
+  public static byte[] load(String name) {
+    try (InputStream stream = Fixtures.class.getResourceAsStream(name)) {
+      if (stream == null) {
+        throw new IllegalStateException("Missing fixture " + name);
+      }
+      return stream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package net.craftportal.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.craftportal.util.ItemNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemNamesBenchmark {
+
+  @Param({"DIAMOND", "NETHERITE_SWORD", "LIGHT_BLUE_GLAZED_TERRACOTTA"})
+  public String material;
+
+  @Benchmark
+  public String formatMaterialName() {
+    return ItemNames.formatMaterialName(this.material);
+  }
+}
@@ -0,0 +1,42 @@
+package net.craftportal.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import net.craftportal.market.MarketPricesParser;
+import net.craftportal.market.PriceIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One full refresh worth of parsing: the {@code /market/prices} fixture into a {@link PriceIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarketPricesParserBenchmark {
+
+  private byte[] body;
+  private int expectedItems;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.body = Fixtures.load(Fixtures.MARKET_PRICES);
+    this.expectedItems = MarketPricesParser.parse(new ByteArrayInputStream(this.body)).size();
+  }
+
+  @Benchmark
+  public PriceIndex parseColdSize() throws IOException {
+    return MarketPricesParser.parse(new ByteArrayInputStream(this.body));
+  }
+
+  @Benchmark
+  public PriceIndex parseWithPreviousSize() throws IOException {
+    return MarketPricesParser.parse(new ByteArrayInputStream(this.body), this.expectedItems);
+  }
+}
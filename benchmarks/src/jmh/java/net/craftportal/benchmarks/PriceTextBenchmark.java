@@ -0,0 +1,51 @@
+package net.craftportal.benchmarks;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import net.craftportal.util.CurrencyFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The text part of the held-item price line: buy and sell total for a stack. The component
+ * wrapping needs a running LabyMod and is left out; the {@code NumberFormat} variant is the
+ * formatting the widgets used before {@link CurrencyFormatter}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PriceTextBenchmark {
+
+  private static final String CURRENCY_SYMBOL = "$";
+
+  private final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.GERMAN);
+  private double buyPrice;
+  private double sellPrice;
+  private int stackSize;
+
+  @Setup
+  public void setUp() {
+    this.buyPrice = 1234.567;
+    this.sellPrice = 1499.9;
+    this.stackSize = 64;
+  }
+
+  @Benchmark
+  public void currencyFormatter(Blackhole blackhole) {
+    blackhole.consume(CurrencyFormatter.format(CURRENCY_SYMBOL, this.buyPrice * this.stackSize));
+    blackhole.consume(CurrencyFormatter.format(CURRENCY_SYMBOL, this.sellPrice * this.stackSize));
+  }
+
+  @Benchmark
+  public void numberFormat(Blackhole blackhole) {
+    blackhole.consume(CURRENCY_SYMBOL + this.numberFormat.format(this.buyPrice * this.stackSize));
+    blackhole.consume(CURRENCY_SYMBOL + this.numberFormat.format(this.sellPrice * this.stackSize));
+  }
+}
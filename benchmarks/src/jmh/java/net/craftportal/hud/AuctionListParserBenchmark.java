@@ -0,0 +1,41 @@
+package net.craftportal.hud;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.craftportal.benchmarks.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing the {@code /auctions/active} fixture with the widget's display limits, and with no limit
+ * to show what stopping early saves. Lives in the widget package because the parser is
+ * package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuctionListParserBenchmark {
+
+  @Param({"5", "15", "2147483647"})
+  public int limit;
+
+  private byte[] body;
+
+  @Setup
+  public void setUp() {
+    this.body = Fixtures.load(Fixtures.AUCTIONS_ACTIVE);
+  }
+
+  @Benchmark
+  public List<AuctionData> parse() throws IOException {
+    return AuctionListParser.parse(new ByteArrayInputStream(this.body), this.limit);
+  }
+}
@@ -0,0 +1,122 @@
+package net.craftportal.hud;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.craftportal.benchmarks.Fixtures;
+import net.craftportal.market.MarketPricesParser;
+import net.craftportal.market.PriceIndex;
+import net.labymod.api.client.resources.ResourceLocation;
+import net.labymod.api.client.world.item.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Valuing a full 36-slot inventory with the inventory widget's {@link SlotValuationTable}, on a
+ * tick where nothing changed and on a full re-valuation after new prices. Slots hold lowercase
+ * item paths, a few without a market price. Stacks are dynamic proxies since {@link ItemStack}
+ * needs a running game otherwise, so every accessor call includes the proxy dispatch. Lives in
+ * the widget package because the slot table is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InventoryLookupBenchmark {
+
+  private static final int SLOTS = 36;
+
+  private PriceIndex prices;
+  private final List<ItemStack> stacks = new ArrayList<>(SLOTS);
+  private final SlotValuationTable table = new SlotValuationTable(SLOTS);
+
+  @Setup
+  public void setUp() throws IOException {
+    this.prices = MarketPricesParser.parse(
+        new ByteArrayInputStream(Fixtures.load(Fixtures.MARKET_PRICES)));
+
+    Random random = new Random(36);
+    for (int slot = 0; slot < SLOTS; slot++) {
+      String path;
+      if (slot % 9 == 8) {
+        path = "debug_stick";
+      } else {
+        String key;
+        do {
+          key = this.prices.keyAt(random.nextInt(this.prices.capacity()));
+        } while (key == null);
+        path = key.toLowerCase(Locale.ROOT);
+      }
+      this.stacks.add(stack(path, 1 + random.nextInt(64)));
+    }
+
+    this.table.setPrices(this.prices);
+    updateTable();
+  }
+
+  @Benchmark
+  public double unchangedTick() {
+    updateTable();
+    return this.table.totalBuyValue() + this.table.totalSellValue();
+  }
+
+  @Benchmark
+  public double revalueAfterPriceUpdate() {
+    this.table.clear();
+    this.table.setPrices(this.prices);
+    updateTable();
+    return this.table.totalBuyValue() + this.table.totalSellValue();
+  }
+
+  private void updateTable() {
+    for (int slot = 0; slot < SLOTS; slot++) {
+      this.table.update(slot, this.stacks.get(slot));
+    }
+  }
+
+  private static ItemStack stack(String path, int size) {
+    ResourceLocation identifier = proxy(ResourceLocation.class, method -> switch (method) {
+      case "getPath" -> path;
+      case "getNamespace" -> "minecraft";
+      default -> null;
+    });
+    return proxy(ItemStack.class, method -> switch (method) {
+      case "isAir" -> Boolean.FALSE;
+      case "getSize" -> size;
+      case "getIdentifier" -> identifier;
+      default -> null;
+    });
+  }
+
+  private interface Answer {
+    Object answer(String method);
+  }
+
+  private static <T> T proxy(Class<T> type, Answer answer) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+        (instance, method, args) -> {
+          if (method.getDeclaringClass() == Object.class) {
+            return objectMethod(instance, method, args);
+          }
+          return answer.answer(method.getName());
+        }));
+  }
+
+  private static Object objectMethod(Object instance, Method method, Object[] args) {
+    return switch (method.getName()) {
+      case "equals" -> instance == args[0];
+      case "hashCode" -> System.identityHashCode(instance);
+      default -> "stack@" + Integer.toHexString(System.identityHashCode(instance));
+    };
+  }
+}
@@ -37,6 +37,10 @@ labyMod {
 }
 
 subprojects {
+    if (name == "benchmarks" || name == "api-stub") {
+        return@subprojects
+    }
+
     plugins.apply("net.labymod.labygradle")
     plugins.apply("net.labymod.labygradle.addon")
 
@@ -5,38 +5,90 @@ import net.craftportal.hud.OPSuchtMarktWidgets;
 import net.craftportal.hud.OPSuchtRecordWidget;
 import net.craftportal.hud.OPSuchtInventoryValueWidget;
 import net.craftportal.hud.AuctionHouseWidget;
+import net.craftportal.hud.MetricsDebugWidget;
+import net.craftportal.http.ApiEndpoints;
+import net.craftportal.http.ApiHttpClient;
+import net.craftportal.listener.AddonStateListener;
+import net.craftportal.market.MarketDataService;
+import net.craftportal.market.PriceHistory;
+import net.craftportal.market.PriceHistoryStore;
+import net.craftportal.market.PriceSnapshotStore;
+import net.craftportal.metrics.MetricsDump;
+import net.craftportal.scheduler.AddonScheduler;
+import net.labymod.api.Constants;
 import net.labymod.api.addon.LabyAddon;
 import net.labymod.api.client.gui.hud.binding.category.HudWidgetCategory;
 import net.labymod.api.models.addon.annotation.AddonMain;
+import java.util.concurrent.TimeUnit;
 
 @AddonMain
 public class OPSuchtMarktAddon extends LabyAddon<OPSuchtMarktConfig> {
 
+  private static final long METRICS_DUMP_INTERVAL_SECONDS = 60;
+
   private HudWidgetCategory widgetCategory;
+  private AddonScheduler scheduler;
+  private MarketDataService marketDataService;
   private OPSuchtMarktWidgets widgetInstance;
   private OPSuchtRecordWidget recordWidgetInstance;
   private OPSuchtInventoryValueWidget inventoryValueWidgetInstance;
   private AuctionHouseWidget auctionHouseWidgetInstance;
+  private MetricsDebugWidget metricsDebugWidgetInstance;
 
   @Override
   protected void enable() {
     registerSettingCategory();
 
+    this.scheduler = new AddonScheduler();
+    ApiEndpoints endpoints = new ApiEndpoints(this.configuration());
+    if (this.configuration().enabled().get()) {
+      ApiHttpClient.warmUp(endpoints.apiBaseUrl());
+    }
+
+    PriceHistory priceHistory = new PriceHistory(new PriceHistoryStore(
+        Constants.Files.CONFIGS.resolve("opsuchtmarkt").resolve("history")));
+
+    this.marketDataService = new MarketDataService(this.configuration(), endpoints,
+        new PriceSnapshotStore(Constants.Files.CONFIGS.resolve("opsuchtmarkt")
+            .resolve("prices.bin")), priceHistory, this.scheduler);
+    this.marketDataService.loadPersistedSnapshot();
+
     this.widgetCategory = new HudWidgetCategory("opsuchtmarkt");
     labyAPI().hudWidgetRegistry().categoryRegistry().register(widgetCategory);
 
-    this.widgetInstance = new OPSuchtMarktWidgets(widgetCategory, this.configuration());
+    this.widgetInstance = new OPSuchtMarktWidgets(widgetCategory, this.configuration(),
+        this.marketDataService);
     labyAPI().hudWidgetRegistry().register(this.widgetInstance);
 
-    this.recordWidgetInstance = new OPSuchtRecordWidget(widgetCategory);
+    this.recordWidgetInstance = new OPSuchtRecordWidget(widgetCategory, endpoints,
+        this.scheduler);
     labyAPI().hudWidgetRegistry().register(this.recordWidgetInstance);
 
     this.inventoryValueWidgetInstance = new OPSuchtInventoryValueWidget(widgetCategory,
-        this.configuration());
+        this.configuration(), this.marketDataService);
     labyAPI().hudWidgetRegistry().register(this.inventoryValueWidgetInstance);
 
-    this.auctionHouseWidgetInstance = new AuctionHouseWidget(widgetCategory, this.configuration());
+    this.auctionHouseWidgetInstance = new AuctionHouseWidget(widgetCategory, this.configuration(),
+        endpoints, this.scheduler);
     labyAPI().hudWidgetRegistry().register(this.auctionHouseWidgetInstance);
+
+    this.metricsDebugWidgetInstance = new MetricsDebugWidget(widgetCategory);
+    labyAPI().hudWidgetRegistry().register(this.metricsDebugWidgetInstance);
+
+    MetricsDump metricsDump = new MetricsDump(Constants.Files.CONFIGS.resolve("opsuchtmarkt")
+        .resolve("metrics.txt"));
+    this.scheduler.scheduleAtFixedRate(() -> {
+      if (this.configuration().writeMetricsDump().get()) {
+        metricsDump.write();
+      }
+    }, METRICS_DUMP_INTERVAL_SECONDS, METRICS_DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+    this.registerListener(new AddonStateListener(this.configuration(), this.scheduler,
+        priceHistory));
+    if (this.configuration().enabled().get()) {
+      this.scheduler.start();
+      this.scheduler.execute(priceHistory::load);
+    }
   }
 
   @Override
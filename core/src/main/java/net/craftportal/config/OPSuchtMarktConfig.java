@@ -1,7 +1,9 @@
 package net.craftportal.config;
 
 import net.labymod.api.addon.AddonConfig;
+import net.labymod.api.client.gui.screen.widget.widgets.input.SliderWidget.SliderSetting;
 import net.labymod.api.client.gui.screen.widget.widgets.input.SwitchWidget.SwitchSetting;
+import net.labymod.api.client.gui.screen.widget.widgets.input.TextFieldWidget.TextFieldSetting;
 import net.labymod.api.client.gui.screen.widget.widgets.input.color.ColorPickerWidget.ColorPickerSetting;
 import net.labymod.api.client.gui.screen.widget.widgets.input.dropdown.DropdownWidget.DropdownSetting;
 import net.labymod.api.configuration.loader.annotation.ConfigName;
@@ -11,6 +13,9 @@ import net.labymod.api.util.Color;
 @ConfigName("settings")
 public class OPSuchtMarktConfig extends AddonConfig {
 
+  public static final String DEFAULT_API_BASE_URL = "https://api.opsucht.net";
+  public static final String DEFAULT_RECORD_API_URL = "https://craftportal.net/api/opsucht-record";
+
   @SwitchSetting
   private final ConfigProperty<Boolean> enabled = ConfigProperty.create(true);
 
@@ -32,12 +37,33 @@ public class OPSuchtMarktConfig extends AddonConfig {
   @ColorPickerSetting
   private final ConfigProperty<Color> sellColor = ConfigProperty.create(Color.ofRGB(255, 85, 85));
 
+  @DropdownSetting
+  private final ConfigProperty<TrendWindow> trendWindow = ConfigProperty.createEnum(TrendWindow.ONE_DAY);
+
   @DropdownSetting
   private final ConfigProperty<AuctionDisplayCount> auctionDisplayCount = ConfigProperty.createEnum(AuctionDisplayCount.TEN);
 
   @DropdownSetting
   private final ConfigProperty<AuctionCategory> auctionCategory = ConfigProperty.createEnum(AuctionCategory.TOP);
 
+  @SwitchSetting
+  private final ConfigProperty<Boolean> prefetchAllAuctionCategories = ConfigProperty.create(false);
+
+  @TextFieldSetting
+  private final ConfigProperty<String> apiBaseUrl = ConfigProperty.create(DEFAULT_API_BASE_URL);
+
+  @TextFieldSetting
+  private final ConfigProperty<String> recordApiUrl = ConfigProperty.create(DEFAULT_RECORD_API_URL);
+
+  @SwitchSetting
+  private final ConfigProperty<Boolean> pauseOutsideOPSucht = ConfigProperty.create(true);
+
+  @SwitchSetting
+  private final ConfigProperty<Boolean> writeMetricsDump = ConfigProperty.create(false);
+
+  @SliderSetting(min = 100, max = 5000, steps = 100)
+  private final ConfigProperty<Integer> tickBudgetMicros = ConfigProperty.create(500);
+
   @Override
   public ConfigProperty<Boolean> enabled() {
     return enabled;
@@ -67,6 +93,10 @@ public class OPSuchtMarktConfig extends AddonConfig {
     return sellColor;
   }
 
+  public ConfigProperty<TrendWindow> trendWindow() {
+    return trendWindow;
+  }
+
   public ConfigProperty<AuctionDisplayCount> auctionDisplayCount() {
     return auctionDisplayCount;
   }
@@ -75,6 +105,30 @@ public class OPSuchtMarktConfig extends AddonConfig {
     return auctionCategory;
   }
 
+  public ConfigProperty<Boolean> prefetchAllAuctionCategories() {
+    return prefetchAllAuctionCategories;
+  }
+
+  public ConfigProperty<String> apiBaseUrl() {
+    return apiBaseUrl;
+  }
+
+  public ConfigProperty<String> recordApiUrl() {
+    return recordApiUrl;
+  }
+
+  public ConfigProperty<Boolean> pauseOutsideOPSucht() {
+    return pauseOutsideOPSucht;
+  }
+
+  public ConfigProperty<Boolean> writeMetricsDump() {
+    return writeMetricsDump;
+  }
+
+  public ConfigProperty<Integer> tickBudgetMicros() {
+    return tickBudgetMicros;
+  }
+
   public enum DisplayMode {
     BUY("opsuchtmarkt.settings.displayMode.buy"),
     SELL("opsuchtmarkt.settings.displayMode.sell"),
@@ -91,6 +145,30 @@ public class OPSuchtMarktConfig extends AddonConfig {
     }
   }
 
+  public enum TrendWindow {
+    OFF("opsuchtmarkt.settings.trendWindow.off", 0L),
+    ONE_HOUR("opsuchtmarkt.settings.trendWindow.oneHour", 60L * 60 * 1000),
+    SIX_HOURS("opsuchtmarkt.settings.trendWindow.sixHours", 6L * 60 * 60 * 1000),
+    ONE_DAY("opsuchtmarkt.settings.trendWindow.oneDay", 24L * 60 * 60 * 1000),
+    SEVEN_DAYS("opsuchtmarkt.settings.trendWindow.sevenDays", 7L * 24 * 60 * 60 * 1000);
+
+    private final String translationKey;
+    private final long millis;
+
+    TrendWindow(String translationKey, long millis) {
+      this.translationKey = translationKey;
+      this.millis = millis;
+    }
+
+    public String getTranslationKey() {
+      return translationKey;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+  }
+
   public enum AuctionDisplayCount {
     FIVE("opsuchtmarkt.settings.auctionDisplayCount.five", 5),
     TEN("opsuchtmarkt.settings.auctionDisplayCount.ten", 10),
@@ -0,0 +1,49 @@
+package net.craftportal.http;
+
+import net.craftportal.config.OPSuchtMarktConfig;
+import net.craftportal.config.OPSuchtMarktConfig.AuctionCategory;
+
+/**
+ * Builds the URLs of all polled endpoints from the configured base URLs, so the addon can be
+ * pointed at a local stand-in of the APIs. Empty settings fall back to the live services.
+ */
+public class ApiEndpoints {
+
+  private final OPSuchtMarktConfig config;
+
+  public ApiEndpoints(OPSuchtMarktConfig config) {
+    this.config = config;
+  }
+
+  public String marketPrices() {
+    return apiBaseUrl() + "/market/prices";
+  }
+
+  public String auctions(AuctionCategory category) {
+    if (category == AuctionCategory.TOP) {
+      return apiBaseUrl() + "/auctions/active";
+    }
+    return apiBaseUrl() + "/auctions/categories/" + category.getApiValue();
+  }
+
+  public String record() {
+    return setting(this.config != null ? this.config.recordApiUrl().get() : null,
+        OPSuchtMarktConfig.DEFAULT_RECORD_API_URL);
+  }
+
+  public String apiBaseUrl() {
+    return setting(this.config != null ? this.config.apiBaseUrl().get() : null,
+        OPSuchtMarktConfig.DEFAULT_API_BASE_URL);
+  }
+
+  private static String setting(String value, String fallback) {
+    if (value == null || value.isBlank()) {
+      return fallback;
+    }
+    String trimmed = value.trim();
+    while (trimmed.endsWith("/")) {
+      trimmed = trimmed.substring(0, trimmed.length() - 1);
+    }
+    return trimmed.isEmpty() ? fallback : trimmed;
+  }
+}
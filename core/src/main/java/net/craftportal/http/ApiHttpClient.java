@@ -0,0 +1,230 @@
+package net.craftportal.http;
+
+import net.craftportal.metrics.Counter;
+import net.craftportal.metrics.Histogram;
+import net.craftportal.metrics.Metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Thin wrapper around {@link HttpClient} for the polled API endpoints. Every request asks for gzip
+ * and, when the caller still holds the data of the last processed response, carries that
+ * response's {@code ETag}/{@code Last-Modified} so the server can answer with 304. Requests,
+ * time to response headers, status classes and bytes received are counted under
+ * {@code http.<name>.*}.
+ *
+ * <p>All instances share one HTTP/2 client, so every endpoint on a host is multiplexed over a
+ * single connection and only one TLS handshake per host is paid.
+ */
+public class ApiHttpClient {
+
+  private static final String USER_AGENT = "LabyMod-OPSuchtMarkt/1.0";
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final HttpClient SHARED_CLIENT = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_2)
+      .connectTimeout(CONNECT_TIMEOUT)
+      .build();
+
+  private final ConcurrentHashMap<String, Validators> validators = new ConcurrentHashMap<>();
+
+  private final Counter requests;
+  private final Counter notModified;
+  private final Counter httpErrors;
+  private final Counter failures;
+  private final Counter bytesReceived;
+  private final Histogram latency;
+
+  private record Validators(String etag, String lastModified) {}
+
+  public ApiHttpClient(String name) {
+    String prefix = "http." + name + ".";
+    this.requests = Metrics.counter(prefix + "requests");
+    this.notModified = Metrics.counter(prefix + "notModified");
+    this.httpErrors = Metrics.counter(prefix + "httpErrors");
+    this.failures = Metrics.counter(prefix + "failures");
+    this.bytesReceived = Metrics.counter(prefix + "bytes");
+    this.latency = Metrics.histogram(prefix + "latency", Histogram.Unit.NANOS);
+  }
+
+  public ApiResponse send(String url, Duration timeout, boolean conditional)
+      throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    this.requests.increment();
+    HttpResponse<InputStream> response;
+    try {
+      response = SHARED_CLIENT.send(buildRequest(url, timeout, conditional),
+          BodyHandlers.ofInputStream());
+    } catch (IOException e) {
+      this.failures.increment();
+      throw e;
+    }
+    this.latency.recordSince(start);
+    return wrap(url, response);
+  }
+
+  public CompletableFuture<ApiResponse> sendAsync(String url, Duration timeout,
+      boolean conditional) {
+    long start = System.nanoTime();
+    this.requests.increment();
+    return SHARED_CLIENT.sendAsync(buildRequest(url, timeout, conditional),
+            BodyHandlers.ofInputStream())
+        .thenApply(response -> {
+          this.latency.recordSince(start);
+          try {
+            return wrap(url, response);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        })
+        .whenComplete((response, error) -> {
+          if (error != null) {
+            this.failures.increment();
+          }
+        });
+  }
+
+  /**
+   * Opens the shared client's connection to {@code url}'s host in the background with a
+   * {@code HEAD} request, so the first real request does not pay for the TCP and TLS handshake.
+   * The answer itself is irrelevant, failures are ignored.
+   */
+  public static void warmUp(String url) {
+    HttpRequest request;
+    try {
+      request = HttpRequest.newBuilder()
+          .uri(URI.create(url))
+          .timeout(CONNECT_TIMEOUT)
+          .header("User-Agent", USER_AGENT)
+          .method("HEAD", HttpRequest.BodyPublishers.noBody())
+          .build();
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    SHARED_CLIENT.sendAsync(request, BodyHandlers.discarding())
+        .exceptionally(e -> null);
+  }
+
+  void storeValidators(String url, String etag, String lastModified) {
+    if (etag == null && lastModified == null) {
+      this.validators.remove(url);
+    } else {
+      this.validators.put(url, new Validators(etag, lastModified));
+    }
+  }
+
+  private HttpRequest buildRequest(String url, Duration timeout, boolean conditional) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder()
+        .uri(URI.create(url))
+        .timeout(timeout)
+        .header("User-Agent", USER_AGENT)
+        .header("Accept", "application/json")
+        .header("Accept-Encoding", "gzip")
+        .GET();
+
+    Validators cached = conditional ? this.validators.get(url) : null;
+    if (cached != null) {
+      if (cached.etag != null) {
+        builder.header("If-None-Match", cached.etag);
+      }
+      if (cached.lastModified != null) {
+        builder.header("If-Modified-Since", cached.lastModified);
+      }
+    }
+    return builder.build();
+  }
+
+  private ApiResponse wrap(String url, HttpResponse<InputStream> response) throws IOException {
+    if (response.statusCode() == 304) {
+      this.notModified.increment();
+    } else if (response.statusCode() != 200) {
+      this.httpErrors.increment();
+    }
+
+    InputStream body = new CountingInputStream(response.body(), this.bytesReceived);
+    String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+    if (response.statusCode() == 200 && "gzip".equalsIgnoreCase(encoding.trim())) {
+      try {
+        body = new GZIPInputStream(body, 8192);
+      } catch (IOException e) {
+        response.body().close();
+        throw e;
+      }
+    }
+
+    return new ApiResponse(this, url, response.statusCode(), body,
+        response.headers().firstValue("ETag").orElse(null),
+        response.headers().firstValue("Last-Modified").orElse(null),
+        parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null)));
+  }
+
+  /**
+   * Counts the bytes read off the wire, before any gzip decoding.
+   */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private final Counter counter;
+
+    CountingInputStream(InputStream in, Counter counter) {
+      super(in);
+      this.counter = counter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = super.read();
+      if (value >= 0) {
+        this.counter.increment();
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        this.counter.add(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      this.counter.add(skipped);
+      return skipped;
+    }
+  }
+
+  private static long parseRetryAfter(String value) {
+    if (value == null) {
+      return 0L;
+    }
+    String trimmed = value.trim();
+    try {
+      return Math.max(0L, Long.parseLong(trimmed) * 1000L);
+    } catch (NumberFormatException e) {
+    }
+    try {
+      long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME)
+          .toInstant().toEpochMilli();
+      return Math.max(0L, at - System.currentTimeMillis());
+    } catch (DateTimeParseException e) {
+      return 0L;
+    }
+  }
+}
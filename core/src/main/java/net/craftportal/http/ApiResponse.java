@@ -0,0 +1,68 @@
+package net.craftportal.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public final class ApiResponse implements AutoCloseable {
+
+  private final ApiHttpClient client;
+  private final String url;
+  private final int statusCode;
+  private final InputStream body;
+  private final String etag;
+  private final String lastModified;
+  private final long retryAfterMs;
+
+  ApiResponse(ApiHttpClient client, String url, int statusCode, InputStream body, String etag,
+      String lastModified, long retryAfterMs) {
+    this.client = client;
+    this.url = url;
+    this.statusCode = statusCode;
+    this.body = body;
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.retryAfterMs = retryAfterMs;
+  }
+
+  public int statusCode() {
+    return this.statusCode;
+  }
+
+  public boolean isOk() {
+    return this.statusCode == 200;
+  }
+
+  public boolean isNotModified() {
+    return this.statusCode == 304;
+  }
+
+  /**
+   * The server's {@code Retry-After} in milliseconds, or 0 when the response carried none.
+   */
+  public long retryAfterMillis() {
+    return this.retryAfterMs;
+  }
+
+  public InputStream body() {
+    return this.body;
+  }
+
+  /**
+   * Remembers this response's validators for the next conditional request. Call it only after the
+   * body was processed successfully, otherwise a later 304 would refer to data that was never
+   * stored.
+   */
+  public void markProcessed() {
+    if (isOk()) {
+      this.client.storeValidators(this.url, this.etag, this.lastModified);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      this.body.close();
+    } catch (IOException e) {
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package net.craftportal.hud;
+
+import java.util.Objects;
+import net.labymod.api.client.component.Component;
+
+/**
+ * One auction as shown by the widget. Instances are immutable apart from the rendered line, which
+ * the widget caches on the instance together with the countdown value it shows; a changed auction
+ * always arrives as a new instance, so the cache is per auction version.
+ */
+final class AuctionData {
+
+  static final long UNKNOWN_END_TIME = Long.MIN_VALUE;
+
+  final String id;
+  final String material;
+  final int amount;
+  final String displayName;
+  final double currentBid;
+  final long endTimeMillis;
+
+  Component renderedPrefix;
+  Component renderedLine;
+  long renderedMinutes = Long.MIN_VALUE;
+
+  AuctionData(String id, String material, int amount, String displayName, double currentBid,
+      long endTimeMillis) {
+    this.id = id;
+    this.material = material;
+    this.amount = amount;
+    this.displayName = displayName;
+    this.currentBid = currentBid;
+    this.endTimeMillis = endTimeMillis;
+  }
+
+  /**
+   * Identity of the auction across polls: its id, or, if the API sent none, the fields that do not
+   * change while an auction runs.
+   */
+  String key() {
+    if (this.id != null) {
+      return this.id;
+    }
+    return this.material + '|' + this.amount + '|' + this.displayName + '|' + this.endTimeMillis;
+  }
+
+  boolean sameVersion(AuctionData other) {
+    return this.amount == other.amount
+        && this.endTimeMillis == other.endTimeMillis
+        && Double.compare(this.currentBid, other.currentBid) == 0
+        && Objects.equals(this.material, other.material)
+        && Objects.equals(this.displayName, other.displayName);
+  }
+
+  boolean hasEnded(long now) {
+    return this.endTimeMillis != UNKNOWN_END_TIME && now >= this.endTimeMillis;
+  }
+
+  /**
+   * Whole minutes left, or -1 if the end time is unknown.
+   */
+  long remainingMinutes(long now) {
+    if (this.endTimeMillis == UNKNOWN_END_TIME) {
+      return -1L;
+    }
+    return (this.endTimeMillis - now) / 60000L;
+  }
+
+  /**
+   * First point in time at which {@link #remainingMinutes(long)} shows a different value or the
+   * auction ends.
+   */
+  long nextCountdownChange(long now) {
+    if (this.endTimeMillis == UNKNOWN_END_TIME) {
+      return Long.MAX_VALUE;
+    }
+    long minutes = remainingMinutes(now);
+    return minutes == 0 ? this.endTimeMillis : this.endTimeMillis - minutes * 60000L + 1;
+  }
+}
@@ -0,0 +1,49 @@
+package net.craftportal.hud;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Difference between two polls of the same auction list. Auctions that did not change keep their
+ * previous instance, so everything cached on them stays valid; if nothing changed at all the
+ * previous list itself is returned.
+ */
+final class AuctionDelta {
+
+  final List<AuctionData> auctions;
+  final boolean unchanged;
+
+  private AuctionDelta(List<AuctionData> auctions, boolean unchanged) {
+    this.auctions = auctions;
+    this.unchanged = unchanged;
+  }
+
+  static AuctionDelta between(List<AuctionData> previous, List<AuctionData> fetched) {
+    if (previous == null) {
+      return new AuctionDelta(fetched, false);
+    }
+
+    Map<String, AuctionData> previousByKey = new HashMap<>(previous.size() * 2);
+    for (AuctionData auction : previous) {
+      previousByKey.put(auction.key(), auction);
+    }
+
+    boolean sameOrder = previous.size() == fetched.size();
+    for (int i = 0; i < fetched.size(); i++) {
+      AuctionData auction = fetched.get(i);
+      AuctionData known = previousByKey.get(auction.key());
+      if (known != null && known.sameVersion(auction)) {
+        fetched.set(i, known);
+      }
+      if (sameOrder && fetched.get(i) != previous.get(i)) {
+        sameOrder = false;
+      }
+    }
+
+    if (sameOrder) {
+      return new AuctionDelta(previous, true);
+    }
+    return new AuctionDelta(fetched, false);
+  }
+}
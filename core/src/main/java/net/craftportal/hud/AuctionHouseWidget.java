@@ -1,9 +1,5 @@
 package net.craftportal.hud;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.io.IOException;
-import java.lang.reflect.Type;
 import net.labymod.api.client.component.Component;
 import net.labymod.api.client.component.format.TextColor;
 import net.labymod.api.client.gui.hud.binding.category.HudWidgetCategory;
@@ -15,20 +11,26 @@ import net.labymod.api.client.gui.icon.Icon;
 import net.labymod.api.client.resources.ResourceLocation;
 import net.craftportal.config.OPSuchtMarktConfig;
 import net.craftportal.config.OPSuchtMarktConfig.AuctionCategory;
+import net.craftportal.http.ApiEndpoints;
+import net.craftportal.http.ApiHttpClient;
+import net.craftportal.http.ApiResponse;
+import net.craftportal.metrics.Histogram;
+import net.craftportal.metrics.Metrics;
+import net.craftportal.metrics.TickBudget;
+import net.craftportal.scheduler.AddonScheduler;
+import net.craftportal.scheduler.PollingPolicy;
+import net.craftportal.util.CurrencyFormatter;
+import net.craftportal.util.ItemNames;
 
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.text.NumberFormat;
+import java.io.IOException;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
@@ -36,19 +38,29 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
   private final AtomicReference<List<AuctionData>> currentAuctions = new AtomicReference<>(null);
   private List<AuctionData> lastDisplayedAuctions = null;
   private int lastDisplayedCount = -1;
+  private long nextCountdownChangeAt = Long.MAX_VALUE;
+  private List<AuctionData> refillRequestedFor = null;
 
   private final List<TextLine> auctionLines = new ArrayList<>();
-
-  private ScheduledExecutorService executor = null;
-  private final Object executorLock = new Object();
+  private final List<AuctionData> lineAuctions = new ArrayList<>();
 
   private static final long UPDATE_INTERVAL_MS = 15000;
+  private static final long MAX_IDLE_INTERVAL_MS = 60000;
+  private static final long MAX_BACKOFF_MS = 300000;
+  private static final long INACTIVE_AFTER_MS = 5000;
+  private static final long STALE_AUCTIONS_TTL_MS = 300000;
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+  private static final int MAX_PARALLEL_FETCHES = 3;
   private static final TextColor TIME_COLOR = TextColor.color(170, 170, 170);
   private static final TextColor PRICE_COLOR = TextColor.color(85, 255, 85);
   private static final TextColor SEPARATOR_COLOR = TextColor.color(170, 170, 170);
+  private static final Histogram PARSE_TIME = Metrics.histogram("parse.auctions",
+      Histogram.Unit.NANOS);
 
-  private final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.GERMAN);
+  private final TickBudget tickBudget = TickBudget.of("auction_house");
   private final OPSuchtMarktConfig config;
+  private final ApiEndpoints endpoints;
+  private final AddonScheduler scheduler;
 
   private TextLine headerLine;
   private AuctionCategory lastCategory = null;
@@ -60,13 +72,29 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
   private final Component unknownComponent;
   private final Component currencyComponent;
 
-  private final HttpClient httpClient;
-  private final Gson gson = new Gson();
-  private final Type auctionListType = new TypeToken<List<AuctionResponse>>() {}.getType();
+  private final ApiHttpClient apiClient;
+  private volatile int parsedDisplayCount = -1;
+  private volatile long auctionsConfirmedAt = 0L;
+  private volatile long lastActiveTick = 0L;
+  private volatile boolean reloadRequested = false;
+  private final AtomicBoolean loading = new AtomicBoolean(false);
+  private final PollingPolicy pollPolicy = new PollingPolicy(UPDATE_INTERVAL_MS,
+      MAX_IDLE_INTERVAL_MS, MAX_BACKOFF_MS);
+  private final ConcurrentHashMap<AuctionCategory, CachedAuctions> auctionCache =
+      new ConcurrentHashMap<>();
+
+  private record CachedAuctions(List<AuctionData> auctions, int displayCount, long confirmedAt) {}
 
-  public AuctionHouseWidget(HudWidgetCategory category, OPSuchtMarktConfig config) {
+  private record PendingFetch(AuctionCategory category, CompletableFuture<ApiResponse> response) {}
+
+  private enum FetchResult { UNCHANGED, CHANGED, FAILED }
+
+  public AuctionHouseWidget(HudWidgetCategory category, OPSuchtMarktConfig config,
+      ApiEndpoints endpoints, AddonScheduler scheduler) {
     super("auction_house");
     this.config = config;
+    this.endpoints = endpoints;
+    this.scheduler = scheduler;
 
     this.loadingComponent = Component.translatable("opsuchtmarkt.messages.loading");
     this.headerComponent = Component.translatable("opsuchtmarkt.hudWidget.auction_house.name");
@@ -75,10 +103,7 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
     this.unknownComponent = Component.translatable("opsuchtmarkt.messages.unknown");
     this.currencyComponent = Component.translatable("opsuchtmarkt.currencySymbol");
 
-    this.httpClient = HttpClient.newBuilder()
-        .version(HttpClient.Version.HTTP_1_1)
-        .connectTimeout(Duration.ofSeconds(5))
-        .build();
+    this.apiClient = new ApiHttpClient("auctions");
 
     try {
       this.setIcon(Icon.texture(ResourceLocation.create("opsuchtmarkt",
@@ -87,6 +112,7 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
     }
 
     this.bindCategory(category);
+    scheduler.schedulePolling(this::loadAuctionsIfActive, this.pollPolicy);
   }
 
   @Override
@@ -97,6 +123,15 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
 
   @Override
   public void onTick(boolean isEditorContext) {
+    long start = this.tickBudget.begin();
+    try {
+      tick(isEditorContext);
+    } finally {
+      this.tickBudget.end(start);
+    }
+  }
+
+  private void tick(boolean isEditorContext) {
     if (isEditorContext) {
       showEditorPreview();
       return;
@@ -104,20 +139,44 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
 
     if (this.config == null || !this.config.enabled().get()) {
       hideAllLines();
-      stopExecutorIfRunning();
       return;
     }
 
+    long now = System.currentTimeMillis();
+    boolean wasInactive = now - lastActiveTick > INACTIVE_AFTER_MS;
+    lastActiveTick = now;
+
     AuctionCategory currentCategory = this.config.auctionCategory().get();
     if (lastCategory != currentCategory) {
       lastCategory = currentCategory;
-      currentAuctions.set(null);
+      boolean cached = showCachedAuctions(currentCategory, now);
       lastDisplayedAuctions = null;
-      stopExecutorIfRunning();
+      if (!cached || !config.prefetchAllAuctionCategories().get()) {
+        scheduler.executeIfConnected(this::loadAuctions);
+      }
+    } else if (wasInactive) {
+      scheduler.executeIfConnected(this::loadAuctions);
     }
 
-    ensureExecutorRunning();
-    updateDisplay();
+    updateDisplay(now);
+  }
+
+  /**
+   * Shows the last list fetched for the category right away, if it is still fresh enough; the load
+   * that follows revalidates it. With all categories prefetched there is no such load, the next
+   * poll refreshes them anyway.
+   */
+  private boolean showCachedAuctions(AuctionCategory category, long now) {
+    CachedAuctions cached = auctionCache.get(category);
+    if (cached != null && now - cached.confirmedAt() <= STALE_AUCTIONS_TTL_MS) {
+      parsedDisplayCount = cached.displayCount();
+      auctionsConfirmedAt = cached.confirmedAt();
+      currentAuctions.set(cached.auctions());
+      return true;
+    }
+    parsedDisplayCount = -1;
+    currentAuctions.set(null);
+    return false;
   }
 
   private void showEditorPreview() {
@@ -137,17 +196,26 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
     for (int i = 2; i < auctionLines.size(); i++) {
       auctionLines.get(i).setState(State.HIDDEN);
     }
+    forgetDisplayedAuctions();
   }
 
-  private void updateDisplay() {
+  /**
+   * Re-renders only what changed: lines whose auction changed, and countdowns whose displayed
+   * minute ticked over. Auctions that have ended are dropped right away, and a reload is requested
+   * once per list to fill their places. Countdown-only updates wait while the widget is over its
+   * tick budget.
+   */
+  private void updateDisplay(long now) {
     List<AuctionData> auctions = currentAuctions.get();
     int displayCount = config.auctionDisplayCount().get().getCount();
 
-    if (auctions == lastDisplayedAuctions && displayCount == lastDisplayedCount) {
+    if (auctions == lastDisplayedAuctions && displayCount == lastDisplayedCount
+        && (now < nextCountdownChangeAt || !this.tickBudget.optionalWorkAllowed())) {
       return;
     }
     lastDisplayedAuctions = auctions;
     lastDisplayedCount = displayCount;
+    nextCountdownChangeAt = Long.MAX_VALUE;
 
     if (auctions == null) {
       this.headerLine.updateAndFlush(this.loadingComponent);
@@ -159,41 +227,89 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
     this.headerLine.updateAndFlush(this.headerComponent);
     this.headerLine.setState(State.VISIBLE);
 
-    if (auctions.isEmpty()) {
+    int lineCount = 0;
+    boolean dropped = false;
+    for (int i = 0; i < auctions.size() && lineCount < displayCount; i++) {
+      AuctionData auction = auctions.get(i);
+      if (auction.hasEnded(now)) {
+        dropped = true;
+        continue;
+      }
+      nextCountdownChangeAt = Math.min(nextCountdownChangeAt, auction.nextCountdownChange(now));
+
+      long minutes = auction.remainingMinutes(now);
+      ensureLineCount(lineCount + 1);
+      if (lineAuctions.get(lineCount) != auction || auction.renderedMinutes != minutes) {
+        if (auction.renderedMinutes != minutes) {
+          auction.renderedLine = buildAuctionLine(auction, minutes);
+          auction.renderedMinutes = minutes;
+        }
+        TextLine textLine = auctionLines.get(lineCount);
+        textLine.updateAndFlush(auction.renderedLine);
+        textLine.setState(State.VISIBLE);
+        lineAuctions.set(lineCount, auction);
+      }
+      lineCount++;
+    }
+
+    if (lineCount == 0) {
       ensureLineCount(1);
       TextLine firstLine = auctionLines.get(0);
       firstLine.updateAndFlush(this.noAuctionsComponent);
       firstLine.setState(State.VISIBLE);
-      for (int i = 1; i < auctionLines.size(); i++) {
-        auctionLines.get(i).setState(State.HIDDEN);
-      }
-      return;
+      lineAuctions.set(0, null);
+      lineCount = 1;
+    }
+
+    for (int i = lineCount; i < auctionLines.size(); i++) {
+      auctionLines.get(i).setState(State.HIDDEN);
+      lineAuctions.set(i, null);
     }
 
-    int actualCount = Math.min(displayCount, auctions.size());
-    ensureLineCount(actualCount);
+    if (dropped && refillRequestedFor != auctions) {
+      refillRequestedFor = auctions;
+      scheduler.executeIfConnected(this::loadAuctions);
+    }
+  }
 
-    for (int i = 0; i < actualCount; i++) {
-      AuctionData auction = auctions.get(i);
-      Component line = buildAuctionLine(auction);
-      TextLine textLine = auctionLines.get(i);
-      textLine.updateAndFlush(line);
-      textLine.setState(State.VISIBLE);
+  private void forgetDisplayedAuctions() {
+    lastDisplayedAuctions = null;
+    for (int i = 0; i < lineAuctions.size(); i++) {
+      lineAuctions.set(i, null);
     }
+  }
 
-    for (int i = actualCount; i < auctionLines.size(); i++) {
-      auctionLines.get(i).setState(State.HIDDEN);
+  private Component buildAuctionLine(AuctionData auction, long remainingMinutes) {
+    if (auction.renderedPrefix == null) {
+      auction.renderedPrefix = buildAuctionPrefix(auction);
+    }
+    Component timeComp = Component.text(formatTimeRemaining(remainingMinutes)).color(TIME_COLOR);
+    return Component.empty()
+        .append(auction.renderedPrefix)
+        .append(timeComp);
+  }
+
+  /**
+   * Builds the name and bid part of new auctions on the fetching thread, so the render thread only
+   * appends the countdown.
+   */
+  private void prerenderPrefixes(List<AuctionData> auctions) {
+    for (AuctionData auction : auctions) {
+      if (auction.renderedPrefix == null) {
+        auction.renderedPrefix = buildAuctionPrefix(auction);
+      }
     }
   }
 
-  private Component buildAuctionLine(AuctionData auction) {
+  private Component buildAuctionPrefix(AuctionData auction) {
     Component nameComp;
     if (auction.displayName != null && !auction.displayName.isEmpty()) {
       nameComp = Component.text(auction.displayName);
     } else if (auction.material != null && !auction.material.isEmpty()) {
-      nameComp = Component.text(formatMaterialName(auction.material));
+      nameComp = Component.text(ItemNames.formatMaterialName(auction.material));
     } else {
-      nameComp = this.unknownComponent;
+      // Wrapped, since append() below mutates its receiver and the shared instance must not grow.
+      nameComp = Component.empty().append(this.unknownComponent);
     }
 
     if (auction.amount > 1) {
@@ -202,65 +318,32 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
 
     Component priceComp = Component.empty()
         .append(this.currencyComponent)
-        .append(Component.text(numberFormat.format(auction.currentBid)))
+        .append(Component.text(CurrencyFormatter.format("", auction.currentBid)))
         .color(PRICE_COLOR);
 
-    String timeStr = formatTimeRemaining(auction.endTime);
-    Component timeComp = Component.text(timeStr).color(TIME_COLOR);
-
     return Component.empty()
         .append(nameComp)
         .append(this.separatorComponent)
         .append(priceComp)
-        .append(this.separatorComponent)
-        .append(timeComp);
-  }
-
-  private String formatMaterialName(String material) {
-    String[] parts = material.toLowerCase(Locale.ROOT).split("_");
-    StringBuilder localBuilder = new StringBuilder(64);
-
-    for (int i = 0; i < parts.length; i++) {
-      String part = parts[i];
-      if (i > 0) {
-        localBuilder.append(" ");
-      }
-      if (!part.isEmpty()) {
-        localBuilder.append(Character.toUpperCase(part.charAt(0)));
-        if (part.length() > 1) {
-          localBuilder.append(part.substring(1));
-        }
-      }
-    }
-    return localBuilder.toString();
+        .append(this.separatorComponent);
   }
 
-  private String formatTimeRemaining(String endTimeStr) {
-    try {
-      Instant endTime = Instant.parse(endTimeStr);
-      Instant now = Instant.now();
-      Duration duration = Duration.between(now, endTime);
-
-      if (duration.isNegative()) {
-        return "0m";
-      }
-
-      long hours = duration.toHours();
-      long minutes = duration.toMinutes() % 60;
-
-      if (hours > 0) {
-        return hours + "h " + minutes + "m";
-      } else {
-        return minutes + "m";
-      }
-    } catch (Exception e) {
+  private String formatTimeRemaining(long remainingMinutes) {
+    if (remainingMinutes < 0) {
       return "?";
     }
+    long hours = remainingMinutes / 60;
+    long minutes = remainingMinutes % 60;
+    if (hours > 0) {
+      return hours + "h " + minutes + "m";
+    }
+    return minutes + "m";
   }
 
   private void ensureLineCount(int needed) {
     while (auctionLines.size() < needed) {
       auctionLines.add(createLine(Component.empty(), Component.empty()));
+      lineAuctions.add(null);
     }
   }
 
@@ -273,117 +356,194 @@ public class AuctionHouseWidget extends TextHudWidget<TextHudWidgetConfig> {
     for (TextLine line : auctionLines) {
       line.setState(State.HIDDEN);
     }
+    forgetDisplayedAuctions();
   }
 
-  private void ensureExecutorRunning() {
-    synchronized (executorLock) {
-      if (executor == null || executor.isShutdown() || executor.isTerminated()) {
-        executor = Executors.newSingleThreadScheduledExecutor(r -> {
-          Thread t = new Thread(r, "OPSuchtMarkt-Auction-Worker");
-          t.setDaemon(true);
-          return t;
-        });
-
-        executor.submit(this::loadAuctions);
-
-        executor.scheduleAtFixedRate(this::loadAuctions,
-            UPDATE_INTERVAL_MS, UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
-      }
+  private void loadAuctionsIfActive() {
+    if (System.currentTimeMillis() - lastActiveTick > INACTIVE_AFTER_MS) {
+      return;
     }
+    loadAuctions();
   }
 
-  private void stopExecutorIfRunning() {
-    synchronized (executorLock) {
-      if (executor != null && !executor.isShutdown()) {
-        executor.shutdownNow();
-      }
-      executor = null;
+  private void loadAuctions() {
+    if (!loading.compareAndSet(false, true)) {
+      reloadRequested = true;
+      return;
+    }
+    try {
+      do {
+        reloadRequested = false;
+        fetchAuctions();
+      } while (reloadRequested);
+    } finally {
+      loading.set(false);
     }
   }
 
-  private void loadAuctions() {
+  private void fetchAuctions() {
+    AuctionCategory category = config.auctionCategory().get();
+    expireStaleAuctions(category);
+    if (!pollPolicy.tryAcquire()) {
+      return;
+    }
+    if (config.prefetchAllAuctionCategories().get()) {
+      fetchAllCategories();
+      return;
+    }
     try {
-      AuctionCategory category = config.auctionCategory().get();
-      String apiUrl = (category == AuctionCategory.TOP)
-          ? "https://api.opsucht.net/auctions/active"
-          : "https://api.opsucht.net/auctions/categories/" + category.getApiValue();
-
-      String resp = httpGet(apiUrl);
-
-      if (resp == null || resp.isEmpty()) {
-        currentAuctions.set(new ArrayList<>());
-        return;
-      }
-
-      List<AuctionResponse> responses = gson.fromJson(resp, auctionListType);
-      if (responses == null) {
-        currentAuctions.set(new ArrayList<>());
-        return;
-      }
-
-      List<AuctionData> auctions = new ArrayList<>();
       int displayCount = config.auctionDisplayCount().get().getCount();
+      boolean conditional = currentAuctions.get() != null && parsedDisplayCount == displayCount;
+      try (ApiResponse response = apiClient.send(endpoints.auctions(category), REQUEST_TIMEOUT,
+          conditional)) {
+        FetchResult result = applyResponse(category, response, displayCount);
+        if (result == FetchResult.FAILED) {
+          pollPolicy.recordFailure(response.retryAfterMillis());
+        } else {
+          pollPolicy.recordSuccess(result == FetchResult.CHANGED);
+        }
+      }
+    } catch (Exception e) {
+      Metrics.recordError("auctions.fetch", e);
+      pollPolicy.recordFailure();
+      keepAuctionsAfterFailure(category);
+    }
+  }
 
-      for (AuctionResponse res : responses) {
-        if (auctions.size() >= displayCount) {
-          break;
+  /**
+   * Fetches every category in one burst over the shared connection, with at most
+   * {@value #MAX_PARALLEL_FETCHES} requests in flight, so switching categories needs no request.
+   * Responses are parsed one after another on this thread while the remaining ones arrive. The
+   * cycle counts as failed if any category failed, and as changed if any category changed.
+   */
+  private void fetchAllCategories() {
+    int displayCount = config.auctionDisplayCount().get().getCount();
+    ArrayDeque<PendingFetch> inFlight = new ArrayDeque<>(MAX_PARALLEL_FETCHES);
+    boolean changed = false;
+    boolean failed = false;
+    long retryAfter = 0L;
+
+    AuctionCategory[] categories = AuctionCategory.values();
+    for (int next = 0; next < categories.length || !inFlight.isEmpty(); ) {
+      if (next < categories.length && inFlight.size() < MAX_PARALLEL_FETCHES) {
+        AuctionCategory category = categories[next++];
+        CachedAuctions cached = auctionCache.get(category);
+        boolean conditional = cached != null && cached.displayCount() == displayCount;
+        CompletableFuture<ApiResponse> response;
+        try {
+          response = apiClient.sendAsync(endpoints.auctions(category), REQUEST_TIMEOUT,
+              conditional);
+        } catch (RuntimeException e) {
+          response = CompletableFuture.failedFuture(e);
         }
+        inFlight.add(new PendingFetch(category, response));
+        continue;
+      }
 
-        if (res.item != null && res.item.material != null && res.endTime != null) {
-          auctions.add(new AuctionData(
-              res.item.material,
-              res.item.amount,
-              res.item.displayName,
-              res.currentBid,
-              res.endTime
-          ));
+      PendingFetch pending = inFlight.poll();
+      try (ApiResponse response = pending.response().join()) {
+        FetchResult result = applyResponse(pending.category(), response, displayCount);
+        changed |= result == FetchResult.CHANGED;
+        if (result == FetchResult.FAILED) {
+          failed = true;
+          retryAfter = Math.max(retryAfter, response.retryAfterMillis());
         }
+      } catch (Exception e) {
+        Metrics.recordError("auctions.fetch",
+            e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        failed = true;
+        keepAuctionsAfterFailure(pending.category());
       }
-      currentAuctions.set(auctions);
+    }
 
-    } catch (Exception e) {
-      currentAuctions.set(new ArrayList<>());
+    if (failed) {
+      pollPolicy.recordFailure(retryAfter);
+    } else {
+      pollPolicy.recordSuccess(changed);
     }
   }
 
-  private String httpGet(String urlStr) throws IOException, InterruptedException {
-    HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(urlStr))
-        .timeout(Duration.ofSeconds(5))
-        .header("User-Agent", "LabyMod-OPSuchtMarkt/1.0")
-        .GET()
-        .build();
+  private FetchResult applyResponse(AuctionCategory category, ApiResponse response,
+      int displayCount) throws IOException {
+    if (response.isNotModified()) {
+      confirmAuctions(category);
+      return FetchResult.UNCHANGED;
+    }
+    if (response.statusCode() == 404) {
+      clearAuctions(category);
+      return FetchResult.CHANGED;
+    }
+    if (!response.isOk()) {
+      keepAuctionsAfterFailure(category);
+      return FetchResult.FAILED;
+    }
 
-    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    long parseStart = System.nanoTime();
+    List<AuctionData> auctions = AuctionListParser.parse(response.body(), displayCount);
+    PARSE_TIME.recordSince(parseStart);
+    response.markProcessed();
+
+    CachedAuctions previous = auctionCache.get(category);
+    AuctionDelta delta = AuctionDelta.between(
+        previous != null && previous.displayCount() == displayCount ? previous.auctions() : null,
+        auctions);
+    prerenderPrefixes(delta.auctions);
+    publishAuctions(category, new CachedAuctions(delta.auctions, displayCount,
+        System.currentTimeMillis()));
+    return delta.unchanged ? FetchResult.UNCHANGED : FetchResult.CHANGED;
+  }
 
-    return (response.statusCode() == 200) ? response.body() : null;
+  /**
+   * Stores a fetched list for its category and shows it if that category is still selected, so a
+   * fetch that finishes after the user switched away is kept for switching back.
+   */
+  private void publishAuctions(AuctionCategory category, CachedAuctions result) {
+    auctionCache.put(category, result);
+    if (config.auctionCategory().get() != category) {
+      return;
+    }
+    parsedDisplayCount = result.displayCount();
+    auctionsConfirmedAt = result.confirmedAt();
+    currentAuctions.set(result.auctions());
   }
 
-  private static class AuctionItem {
-    String material;
-    int amount = 1;
-    String displayName;
+  private void confirmAuctions(AuctionCategory category) {
+    CachedAuctions cached = auctionCache.get(category);
+    if (cached != null) {
+      publishAuctions(category, new CachedAuctions(cached.auctions(), cached.displayCount(),
+          System.currentTimeMillis()));
+    }
   }
 
-  private static class AuctionResponse {
-    AuctionItem item;
-    double currentBid;
-    String endTime;
+  /**
+   * A failed poll keeps the last list on screen; it is only replaced when there is nothing to show
+   * yet or the list has not been confirmed for {@value #STALE_AUCTIONS_TTL_MS} ms.
+   */
+  private void keepAuctionsAfterFailure(AuctionCategory category) {
+    if (config.auctionCategory().get() != category) {
+      return;
+    }
+    if (currentAuctions.get() == null) {
+      clearAuctions(category);
+    } else {
+      expireStaleAuctions(category);
+    }
   }
 
-  private static class AuctionData {
-    final String material;
-    final int amount;
-    final String displayName;
-    final double currentBid;
-    final String endTime;
+  private void expireStaleAuctions(AuctionCategory category) {
+    List<AuctionData> auctions = currentAuctions.get();
+    if (auctions != null && !auctions.isEmpty()
+        && System.currentTimeMillis() - auctionsConfirmedAt > STALE_AUCTIONS_TTL_MS) {
+      clearAuctions(category);
+    }
+  }
 
-    AuctionData(String material, int amount, String displayName, double currentBid, String endTime) {
-      this.material = material;
-      this.amount = amount;
-      this.displayName = displayName;
-      this.currentBid = currentBid;
-      this.endTime = endTime;
+  private void clearAuctions(AuctionCategory category) {
+    auctionCache.remove(category);
+    if (config.auctionCategory().get() != category) {
+      return;
     }
+    parsedDisplayCount = -1;
+    currentAuctions.set(new ArrayList<>());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package net.craftportal.hud;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an auction list body ({@code [{id, item: {material, amount, displayName}, currentBid,
+ * endTime}]}) and stops reading as soon as enough valid auctions were collected; the rest of the
+ * body is never parsed. End times are converted to epoch milliseconds here, once per auction.
+ */
+final class AuctionListParser {
+
+  private AuctionListParser() {
+  }
+
+  static List<AuctionData> parse(InputStream body, int limit) throws IOException {
+    try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+      return parse(reader, limit);
+    }
+  }
+
+  static List<AuctionData> parse(Reader body, int limit) throws IOException {
+    JsonReader reader = new JsonReader(body);
+    List<AuctionData> auctions = new ArrayList<>(Math.min(limit, 64));
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      return auctions;
+    }
+
+    reader.beginArray();
+    while (auctions.size() < limit && reader.hasNext()) {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        continue;
+      }
+      AuctionData auction = readAuction(reader);
+      if (auction != null) {
+        auctions.add(auction);
+      }
+    }
+    return auctions;
+  }
+
+  private static AuctionData readAuction(JsonReader reader) throws IOException {
+    String id = null;
+    String material = null;
+    int amount = 1;
+    String displayName = null;
+    double currentBid = 0.0;
+    String endTime = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String field = reader.nextName();
+      JsonToken token = reader.peek();
+      if (("id".equals(field) || "auctionId".equals(field) || "uuid".equals(field))
+          && (token == JsonToken.STRING || token == JsonToken.NUMBER)) {
+        id = reader.nextString();
+      } else if ("item".equals(field) && token == JsonToken.BEGIN_OBJECT) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+          String itemField = reader.nextName();
+          JsonToken itemToken = reader.peek();
+          if ("material".equals(itemField) && itemToken == JsonToken.STRING) {
+            material = reader.nextString();
+          } else if ("amount".equals(itemField) && itemToken == JsonToken.NUMBER) {
+            amount = reader.nextInt();
+          } else if ("displayName".equals(itemField) && itemToken == JsonToken.STRING) {
+            displayName = reader.nextString();
+          } else {
+            reader.skipValue();
+          }
+        }
+        reader.endObject();
+      } else if ("currentBid".equals(field) && token == JsonToken.NUMBER) {
+        currentBid = reader.nextDouble();
+      } else if ("endTime".equals(field) && token == JsonToken.STRING) {
+        endTime = reader.nextString();
+      } else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    if (material == null || endTime == null) {
+      return null;
+    }
+    return new AuctionData(id, material, amount, displayName, currentBid, parseEndTime(endTime));
+  }
+
+  private static long parseEndTime(String endTime) {
+    try {
+      return Instant.parse(endTime).toEpochMilli();
+    } catch (DateTimeParseException | ArithmeticException e) {
+      return AuctionData.UNKNOWN_END_TIME;
+    }
+  }
+}
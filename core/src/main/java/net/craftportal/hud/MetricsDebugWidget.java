@@ -0,0 +1,117 @@
+package net.craftportal.hud;
+
+import net.labymod.api.client.component.Component;
+import net.labymod.api.client.gui.hud.binding.category.HudWidgetCategory;
+import net.labymod.api.client.gui.hud.hudwidget.text.TextHudWidget;
+import net.labymod.api.client.gui.hud.hudwidget.text.TextHudWidgetConfig;
+import net.labymod.api.client.gui.hud.hudwidget.text.TextLine;
+import net.craftportal.metrics.Histogram;
+import net.craftportal.metrics.Metrics;
+import net.craftportal.metrics.TickBudget;
+import java.util.Map;
+
+/**
+ * Shows what the addon costs at runtime: the slowest widget tick, the worst tick budget offender
+ * of the last minute, request totals, the slowest endpoint and parser, the item name cache hit
+ * rate and the last swallowed error. Values are read from {@link Metrics} once per second, not
+ * every tick.
+ */
+public class MetricsDebugWidget extends TextHudWidget<TextHudWidgetConfig> {
+
+  private static final long REFRESH_INTERVAL_MS = 1000;
+  private static final int OFFENDER_WINDOW_SECONDS = 60;
+
+  private TextLine tickLine;
+  private TextLine offenderLine;
+  private TextLine httpLine;
+  private TextLine latencyLine;
+  private TextLine parseLine;
+  private TextLine cacheLine;
+  private TextLine errorLine;
+  private long nextRefreshAt;
+
+  public MetricsDebugWidget(HudWidgetCategory category) {
+    super("metrics_debug");
+    this.bindCategory(category);
+  }
+
+  @Override
+  public void load(TextHudWidgetConfig config) {
+    super.load(config);
+    this.tickLine = createLine(label("tick"), Component.empty());
+    this.offenderLine = createLine(label("offender"), Component.empty());
+    this.httpLine = createLine(label("http"), Component.empty());
+    this.latencyLine = createLine(label("latency"), Component.empty());
+    this.parseLine = createLine(label("parse"), Component.empty());
+    this.cacheLine = createLine(label("cache"), Component.empty());
+    this.errorLine = createLine(label("error"), Component.empty());
+    this.nextRefreshAt = 0L;
+  }
+
+  @Override
+  public void onTick(boolean isEditorContext) {
+    long now = System.currentTimeMillis();
+    if (now < this.nextRefreshAt) {
+      return;
+    }
+    this.nextRefreshAt = now + REFRESH_INTERVAL_MS;
+
+    this.tickLine.updateAndFlush(Component.text(slowest("tick.")));
+    this.offenderLine.updateAndFlush(Component.text(worstOffender()));
+    this.httpLine.updateAndFlush(Component.text(Metrics.sumCounters("http.", ".requests")
+        + " req / " + (Metrics.sumCounters("http.", ".failures")
+        + Metrics.sumCounters("http.", ".httpErrors")) + " err / "
+        + Metrics.sumCounters("http.", ".bytes") / 1024 + "KB"));
+    this.latencyLine.updateAndFlush(Component.text(slowest("http.")));
+    this.parseLine.updateAndFlush(Component.text(slowest("parse.")));
+
+    long hits = Metrics.gaugeValue("cache.itemNames.hits");
+    long lookups = hits + Metrics.gaugeValue("cache.itemNames.misses");
+    this.cacheLine.updateAndFlush(Component.text(lookups == 0 ? "-"
+        : (hits * 100 / lookups) + "% (" + Metrics.gaugeValue("cache.itemNames.size") + ")"));
+
+    Metrics.LastError error = Metrics.lastError();
+    this.errorLine.updateAndFlush(Component.text(error == null ? "-"
+        : error.source() + " " + (now - error.timestamp()) / 1000 + "s: " + error.message()));
+  }
+
+  /**
+   * The histogram under {@code prefix} with the highest p99, as {@code name p99 .. max ..}.
+   */
+  private static String slowest(String prefix) {
+    String slowestName = null;
+    Histogram.Snapshot slowest = null;
+    for (Map.Entry<String, Histogram.Snapshot> entry : Metrics.histograms(prefix).entrySet()) {
+      Histogram.Snapshot snapshot = entry.getValue();
+      if (snapshot.count() > 0
+          && (slowest == null || snapshot.percentile(0.99) > slowest.percentile(0.99))) {
+        slowestName = entry.getKey();
+        slowest = snapshot;
+      }
+    }
+    if (slowest == null) {
+      return "-";
+    }
+    return slowestName + " p99 " + slowest.format(slowest.percentile(0.99))
+        + " max " + slowest.format(slowest.max());
+  }
+
+  /**
+   * The widget with the worst single tick in the last minute and how often it went over budget.
+   */
+  private static String worstOffender() {
+    for (TickBudget budget : TickBudget.worstOffenders(OFFENDER_WINDOW_SECONDS)) {
+      long worst = budget.worstTick(OFFENDER_WINDOW_SECONDS);
+      if (worst == 0L) {
+        break;
+      }
+      return budget.widget() + " " + worst / 1000L + "µs, "
+          + budget.overBudgetTicks(OFFENDER_WINDOW_SECONDS) + "x > budget";
+    }
+    return "-";
+  }
+
+  private static Component label(String key) {
+    return Component.translatable("opsuchtmarkt.hudWidget.metrics_debug." + key);
+  }
+}
@@ -2,6 +2,8 @@ package net.craftportal.hud;
 
 import net.labymod.api.client.component.Component;
 import net.labymod.api.client.component.format.TextColor;
+import net.labymod.api.client.entity.LivingEntity.EquipmentSpot;
+import net.labymod.api.client.entity.player.ClientPlayer;
 import net.labymod.api.client.entity.player.Inventory;
 import net.labymod.api.client.gui.hud.binding.category.HudWidgetCategory;
 import net.labymod.api.client.gui.hud.hudwidget.text.TextHudWidget;
@@ -10,98 +12,72 @@ import net.labymod.api.client.gui.hud.hudwidget.text.TextLine;
 import net.labymod.api.client.gui.hud.hudwidget.text.TextLine.State;
 import net.labymod.api.client.gui.icon.Icon;
 import net.labymod.api.client.resources.ResourceLocation;
-import net.labymod.api.client.world.item.ItemStack;
 import net.craftportal.config.OPSuchtMarktConfig;
 import net.craftportal.config.OPSuchtMarktConfig.DisplayMode;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse.BodyHandlers;
-import java.text.NumberFormat;
-import java.time.Duration;
-import java.util.Locale;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import net.craftportal.market.MarketDataService;
+import net.craftportal.market.MarketSnapshot;
+import net.craftportal.metrics.Metrics;
+import net.craftportal.metrics.TickBudget;
+import net.craftportal.util.CurrencyFormatter;
 import static net.labymod.api.Laby.labyAPI;
 
 public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConfig> {
 
-  private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-      .version(HttpClient.Version.HTTP_2)
-      .connectTimeout(Duration.ofSeconds(5))
-      .build();
-
-  private static final long INVENTORY_CHECK_INTERVAL_MS = 2000;
-  private static final long PRICE_CACHE_DURATION_MS = 30000;
-  private static final long CACHE_CLEANUP_INTERVAL_MS = 300000;
-  private static final long MARKET_CACHE_MS = 30000;
   private static final String CURRENCY_SYMBOL = "$";
+  private static final int MAIN_INVENTORY_SLOTS = 36;
+  private static final EquipmentSpot[] EQUIPMENT_SLOTS = {
+      EquipmentSpot.HEAD, EquipmentSpot.CHEST, EquipmentSpot.LEGS, EquipmentSpot.FEET,
+      EquipmentSpot.OFF_HAND
+  };
 
-  private final AtomicReference<InventoryValueData> currentInventoryValue = new AtomicReference<>(null);
+  private final SlotValuationTable valuationTable =
+      new SlotValuationTable(MAIN_INVENTORY_SLOTS + EQUIPMENT_SLOTS.length);
+  private InventoryValueData currentInventoryValue = null;
+  private final TickBudget tickBudget = TickBudget.of("inventory_widget");
 
   private TextLine valueLine;
-  private long lastInventoryCheck = 0L;
-
-  private ScheduledExecutorService executor = null;
-  private final Object executorLock = new Object();
-
-  private final ConcurrentHashMap<String, CachedPriceData> priceCache = new ConcurrentHashMap<>();
-  private final AtomicReference<JsonObject> marketJsonCache = new AtomicReference<>(null);
-  private volatile long marketCacheTimestamp = 0L;
 
   private final OPSuchtMarktConfig config;
+  private final MarketDataService marketDataService;
 
   private final Component loadingComponent;
   private final Component calculatingComponent;
   private final Component noItemsComponent;
   private final Component separatorComponent;
+  private final Component staleComponent;
 
   private TextColor buyColorCache;
   private TextColor sellColorCache;
   private net.labymod.api.util.Color lastConfigBuyColor;
   private net.labymod.api.util.Color lastConfigSellColor;
 
-  private NumberFormat numberFormat;
-
-  private volatile boolean pendingMarketRefresh = false;
-  private volatile boolean isCalculating = false;
   private volatile boolean needsDisplayUpdate = false;
 
   private DisplayMode lastDisplayMode;
   private boolean lastShowItemCount;
 
-  private record InventoryValueData(int totalItems, double totalBuyValue, double totalSellValue, boolean calculationComplete) {}
-  private record PriceData(boolean itemNotFound, Double buy, Double sell) {}
-  private record CachedPriceData(PriceData priceData, long timestamp) {}
+  private record InventoryValueData(int totalItems, double totalBuyValue, double totalSellValue) {}
 
-  public OPSuchtInventoryValueWidget(HudWidgetCategory category, OPSuchtMarktConfig config) {
+  public OPSuchtInventoryValueWidget(HudWidgetCategory category, OPSuchtMarktConfig config,
+      MarketDataService marketDataService) {
     super("inventory_widget");
     this.config = config;
+    this.marketDataService = marketDataService;
     this.loadingComponent = Component.translatable("opsuchtmarkt.messages.loading");
     this.calculatingComponent = Component.translatable("opsuchtmarkt.messages.calculating");
     this.noItemsComponent = Component.translatable("opsuchtmarkt.messages.noItem");
     this.separatorComponent = Component.text(" - ").color(TextColor.color(170, 170, 170));
+    this.staleComponent = Component.translatable("opsuchtmarkt.messages.stale")
+        .color(TextColor.color(170, 170, 170));
     try {
       this.setIcon(Icon.texture(ResourceLocation.create("opsuchtmarkt", "textures/inventory_value_widget.png")));
     } catch (Throwable t) {
     }
 
-    try {
-      this.numberFormat = NumberFormat.getNumberInstance(Locale.getDefault());
-    } catch (Exception e) {
-      this.numberFormat = NumberFormat.getNumberInstance(Locale.GERMAN);
-    }
-
     initializeColorCache();
     this.lastShowItemCount = this.config.showItemCount().get();
     this.lastDisplayMode = this.config.displayMode().get();
+    this.marketDataService.addUpdateListener(() -> this.needsDisplayUpdate = true);
     this.bindCategory(category);
   }
 
@@ -109,7 +85,6 @@ public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConf
   public void load(TextHudWidgetConfig config) {
     super.load(config);
     this.valueLine = createLine(Component.translatable("opsuchtmarkt.hudWidget.inventory_widget.name"), this.loadingComponent);
-    ensureExecutorRunning();
   }
 
   private void initializeColorCache() {
@@ -139,6 +114,15 @@ public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConf
 
   @Override
   public void onTick(boolean isEditorContext) {
+    long start = this.tickBudget.begin();
+    try {
+      tick(isEditorContext);
+    } finally {
+      this.tickBudget.end(start);
+    }
+  }
+
+  private void tick(boolean isEditorContext) {
     if (isEditorContext) {
       this.valueLine.updateAndFlush(this.loadingComponent);
       this.valueLine.setState(State.VISIBLE);
@@ -147,17 +131,15 @@ public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConf
 
     if (this.config == null || !this.config.enabled().get()) {
       this.valueLine.setState(State.HIDDEN);
-      stopExecutorIfRunning();
+      resetValuation();
       return;
     }
 
-    ensureExecutorRunning();
-    updateColorCacheIfNeeded();
-
-    long now = System.currentTimeMillis();
-    if (now - lastInventoryCheck > INVENTORY_CHECK_INTERVAL_MS && !isCalculating) {
-      lastInventoryCheck = now;
-      calculateInventoryValue();
+    if (this.tickBudget.optionalWorkAllowed()) {
+      updateColorCacheIfNeeded();
+      updateInventoryValue();
+    } else if (!needsDisplayUpdate) {
+      return;
     }
 
     DisplayMode currentDisplayMode = this.config.displayMode().get();
@@ -172,17 +154,18 @@ public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConf
   }
 
   private void updateDisplay(DisplayMode displayMode, boolean showItemCount) {
-    InventoryValueData valueData = currentInventoryValue.get();
+    InventoryValueData valueData = currentInventoryValue;
     Component displayText = buildDisplayText(valueData, displayMode, showItemCount);
     this.valueLine.updateAndFlush(displayText);
     this.valueLine.setState(State.VISIBLE);
   }
 
   private Component buildDisplayText(InventoryValueData valueData, DisplayMode displayMode, boolean showItemCount) {
-    if (marketJsonCache.get() == null) {
+    MarketSnapshot snapshot = marketDataService.snapshot();
+    if (snapshot == null) {
       return this.loadingComponent;
     }
-    if (valueData == null || !valueData.calculationComplete) {
+    if (valueData == null) {
       return this.calculatingComponent;
     }
     if (valueData.totalItems == 0) {
@@ -190,6 +173,9 @@ public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConf
     }
 
     Component valueText = createValueText(valueData.totalBuyValue, valueData.totalSellValue, displayMode);
+    if (snapshot.stale()) {
+      valueText = Component.empty().append(valueText).append(this.staleComponent);
+    }
 
     if (showItemCount) {
       String itemCountText = valueData.totalItems + " " + net.labymod.api.util.I18n.translate("opsuchtmarkt.messages.items");
@@ -203,224 +189,62 @@ public class OPSuchtInventoryValueWidget extends TextHudWidget<TextHudWidgetConf
     switch (mode) {
       case BUY:
         if (totalBuyValue != null && totalBuyValue > 0) {
-          return Component.text(CURRENCY_SYMBOL + numberFormat.format(totalBuyValue)).color(buyColorCache);
+          return Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, totalBuyValue)).color(buyColorCache);
         } else {
           return Component.translatable("opsuchtmarkt.messages.noBuyPrice").color(buyColorCache);
         }
       case SELL:
         if (totalSellValue != null && totalSellValue > 0) {
-          return Component.text(CURRENCY_SYMBOL + numberFormat.format(totalSellValue)).color(sellColorCache);
+          return Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, totalSellValue)).color(sellColorCache);
         } else {
           return Component.translatable("opsuchtmarkt.messages.noSellPrice").color(sellColorCache);
         }
       case BOTH:
-        Component buyComp = (totalBuyValue != null && totalBuyValue > 0) ? Component.text(CURRENCY_SYMBOL + numberFormat.format(totalBuyValue)).color(buyColorCache) : Component.translatable("opsuchtmarkt.messages.noPrice").color(buyColorCache);
-        Component sellComp = (totalSellValue != null && totalSellValue > 0) ? Component.text(CURRENCY_SYMBOL + numberFormat.format(totalSellValue)).color(sellColorCache) : Component.translatable("opsuchtmarkt.messages.noPrice").color(sellColorCache);
+        Component buyComp = (totalBuyValue != null && totalBuyValue > 0) ? Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, totalBuyValue)).color(buyColorCache) : Component.translatable("opsuchtmarkt.messages.noPrice").color(buyColorCache);
+        Component sellComp = (totalSellValue != null && totalSellValue > 0) ? Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, totalSellValue)).color(sellColorCache) : Component.translatable("opsuchtmarkt.messages.noPrice").color(sellColorCache);
         return Component.empty().append(buyComp).append(this.separatorComponent).append(sellComp);
       default:
         return Component.translatable("opsuchtmarkt.messages.noPrice");
     }
   }
 
-  private void calculateInventoryValue() {
-    if (isCalculating) return;
-    isCalculating = true;
-
-    executor.submit(() -> {
-      try {
-        if (labyAPI().minecraft() == null || labyAPI().minecraft().getClientPlayer() == null) {
-          currentInventoryValue.set(new InventoryValueData(0, 0.0, 0.0, true));
-          return;
-        }
-        Inventory inventory = labyAPI().minecraft().getClientPlayer().inventory();
-        if (inventory == null) {
-          currentInventoryValue.set(new InventoryValueData(0, 0.0, 0.0, true));
-          return;
-        }
-
-        JsonObject market = marketJsonCache.get();
-        if (market == null) {
-          currentInventoryValue.set(new InventoryValueData(0, 0.0, 0.0, false));
-          return;
-        }
-
-        int totalItems = 0;
-        double totalBuyValue = 0.0;
-        double totalSellValue = 0.0;
-
-        for (int slot = 0; slot < 36; slot++) {
-          ItemStack itemStack = inventory.itemStackAt(slot);
-          if (itemStack == null || itemStack.isAir()) {
-            continue;
-          }
-          String itemId = getItemIdFromIdentifier(itemStack);
-          if (itemId == null || itemId.isEmpty()) {
-            continue;
-          }
-
-          int stackSize = getStackSize(itemStack);
-          totalItems += stackSize;
-          PriceData priceData = getPriceDataForItem(itemId, market);
-
-          if (priceData != null && !priceData.itemNotFound) {
-            if (priceData.buy != null) {
-              totalBuyValue += priceData.buy * stackSize;
-            }
-            if (priceData.sell != null) {
-              totalSellValue += priceData.sell * stackSize;
-            }
-          }
-        }
-        currentInventoryValue.set(new InventoryValueData(totalItems, totalBuyValue, totalSellValue, true));
-      } catch (Throwable t) {
-        currentInventoryValue.set(new InventoryValueData(0, 0.0, 0.0, true));
-      } finally {
-        isCalculating = false;
+  private void updateInventoryValue() {
+    ClientPlayer player = labyAPI().minecraft() != null
+        ? labyAPI().minecraft().getClientPlayer() : null;
+    Inventory inventory = player != null ? player.inventory() : null;
+    if (inventory == null) {
+      if (currentInventoryValue == null || currentInventoryValue.totalItems != 0) {
+        resetValuation();
+        currentInventoryValue = new InventoryValueData(0, 0.0, 0.0);
         needsDisplayUpdate = true;
       }
-    });
-  }
-
-  private PriceData getPriceDataForItem(String itemId, JsonObject market) {
-    CachedPriceData cached = priceCache.get(itemId);
-    if (cached != null && System.currentTimeMillis() - cached.timestamp < PRICE_CACHE_DURATION_MS) {
-      return cached.priceData;
-    }
-
-    try {
-      PriceData pd = findItemInCategories(market, itemId);
-      if (pd != null) {
-        priceCache.put(itemId, new CachedPriceData(pd, System.currentTimeMillis()));
-        return pd;
-      } else {
-        PriceData notFoundData = new PriceData(true, null, null);
-        priceCache.put(itemId, new CachedPriceData(notFoundData, System.currentTimeMillis()));
-        return notFoundData;
-      }
-    } catch (Exception e) {
-      return null;
-    }
-  }
-
-  private void refreshMarketDataIfNeeded() {
-    if (System.currentTimeMillis() - marketCacheTimestamp < MARKET_CACHE_MS || pendingMarketRefresh) {
       return;
     }
-    pendingMarketRefresh = true;
-
-    String apiUrl = "https://api.opsucht.net/market/prices";
-    HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(apiUrl))
-        .timeout(Duration.ofSeconds(5))
-        .header("User-Agent", "LabyMod-OPSuchtMarkt/1.0")
-        .GET()
-        .build();
-
-    HTTP_CLIENT.sendAsync(request, BodyHandlers.ofString())
-        .whenCompleteAsync((resp, ex) -> {
-          try {
-            if (ex == null && resp.statusCode() == 200) {
-              String body = resp.body();
-              if (body != null && !body.isEmpty()) {
-                marketJsonCache.set(JsonParser.parseString(body).getAsJsonObject());
-                marketCacheTimestamp = System.currentTimeMillis();
-                needsDisplayUpdate = true;
-              }
-            }
-          } catch (Exception e) {
-          } finally {
-            pendingMarketRefresh = false;
-          }
-        }, executor);
-  }
 
-  private PriceData findItemInCategories(JsonObject categories, String itemId) {
+    valuationTable.setPrices(marketDataService.prices());
+
+    boolean changed = false;
     try {
-      for (String categoryName : categories.keySet()) {
-        JsonObject category = categories.getAsJsonObject(categoryName);
-        if (category.has(itemId)) {
-          JsonArray priceArray = category.getAsJsonArray(itemId);
-          return parsePriceDataFromArray(priceArray);
-        }
+      for (int slot = 0; slot < MAIN_INVENTORY_SLOTS; slot++) {
+        changed |= valuationTable.update(slot, inventory.itemStackAt(slot));
       }
-    } catch (Exception e) {
-    }
-    return null;
-  }
-
-  private PriceData parsePriceDataFromArray(JsonArray priceArray) {
-    if (priceArray == null || priceArray.isEmpty()) {
-      return new PriceData(true, null, null);
-    }
-    Double buyPrice = null;
-    Double sellPrice = null;
-    for (JsonElement element : priceArray) {
-      try {
-        JsonObject order = element.getAsJsonObject();
-        String orderSide = order.get("orderSide").getAsString();
-        double price = order.get("price").getAsDouble();
-        if ("BUY".equals(orderSide)) {
-          buyPrice = price;
-        } else if ("SELL".equals(orderSide)) {
-          sellPrice = price;
-        }
-      } catch (Exception e) {
+      for (int i = 0; i < EQUIPMENT_SLOTS.length; i++) {
+        changed |= valuationTable.update(MAIN_INVENTORY_SLOTS + i,
+            player.getEquipmentItemStack(EQUIPMENT_SLOTS[i]));
       }
-    }
-    return new PriceData(false, buyPrice, sellPrice);
-  }
-
-  private int getStackSize(ItemStack stack) {
-    try {
-      return stack.getSize();
     } catch (Throwable t) {
-      return 1;
+      Metrics.recordError("inventory_widget.scan", t);
     }
-  }
 
-  private String getItemIdFromIdentifier(ItemStack stk) {
-    try {
-      ResourceLocation loc = stk.getIdentifier();
-      if (loc != null) {
-        return loc.getPath().toUpperCase(Locale.ROOT);
-      }
-    } catch (Exception e) {
-    }
-    return null;
-  }
-
-  private void cleanupOldCacheEntries() {
-    long now = System.currentTimeMillis();
-    priceCache.entrySet().removeIf(e -> now - e.getValue().timestamp > PRICE_CACHE_DURATION_MS * 2);
-  }
-
-  private void ensureExecutorRunning() {
-    synchronized (executorLock) {
-      if (executor == null || executor.isShutdown() || executor.isTerminated()) {
-        executor = Executors.newSingleThreadScheduledExecutor(r -> {
-          Thread t = new Thread(r, "OPSuchtMarkt-Inventory-Worker");
-          t.setDaemon(true);
-          return t;
-        });
-        executor.scheduleAtFixedRate(this::cleanupOldCacheEntries, CACHE_CLEANUP_INTERVAL_MS, CACHE_CLEANUP_INTERVAL_MS, TimeUnit.MILLISECONDS);
-        executor.scheduleAtFixedRate(this::refreshMarketDataIfNeeded, 0, MARKET_CACHE_MS, TimeUnit.MILLISECONDS);
-      }
+    if (changed || currentInventoryValue == null) {
+      currentInventoryValue = new InventoryValueData(valuationTable.totalItems(),
+          valuationTable.totalBuyValue(), valuationTable.totalSellValue());
+      needsDisplayUpdate = true;
     }
   }
 
-  private void stopExecutorIfRunning() {
-    synchronized (executorLock) {
-      if (executor != null && !executor.isShutdown()) {
-        executor.shutdownNow();
-      }
-      executor = null;
-      priceCache.clear();
-      marketJsonCache.set(null);
-      marketCacheTimestamp = 0L;
-      currentInventoryValue.set(null);
-      pendingMarketRefresh = false;
-      isCalculating = false;
-      needsDisplayUpdate = false;
-    }
+  private void resetValuation() {
+    valuationTable.clear();
+    currentInventoryValue = null;
   }
-}
\ No newline at end of file
+}
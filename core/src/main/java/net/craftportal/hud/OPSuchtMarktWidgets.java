@@ -12,85 +12,90 @@ import net.labymod.api.client.resources.ResourceLocation;
 import net.labymod.api.client.world.item.ItemStack;
 import net.craftportal.config.OPSuchtMarktConfig;
 import net.craftportal.config.OPSuchtMarktConfig.DisplayMode;
+import net.craftportal.config.OPSuchtMarktConfig.TrendWindow;
+import net.craftportal.market.MarketDataService;
+import net.craftportal.market.MarketSnapshot;
+import net.craftportal.market.PriceHistory;
+import net.craftportal.market.PriceIndex;
+import net.craftportal.metrics.Metrics;
+import net.craftportal.metrics.TickBudget;
+import net.craftportal.util.BoundedCache;
+import net.craftportal.util.CurrencyFormatter;
+import net.craftportal.util.ItemNames;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
-import java.text.NumberFormat;
-import java.time.Duration;
-import java.util.Locale;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static net.labymod.api.Laby.labyAPI;
 
 public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
 
-  private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-      .version(HttpClient.Version.HTTP_2)
-      .connectTimeout(Duration.ofSeconds(3))
-      .build();
-
-  private static final long AUTO_DETECT_INTERVAL_MS = 200;
-  private static final long PRICE_CACHE_DURATION_MS = 30000;
-  private static final long CACHE_CLEANUP_INTERVAL_MS = 300000;
   private static final TextColor SEPARATOR_COLOR = TextColor.color(170, 170, 170);
+  private static final TextColor TREND_UP_COLOR = TextColor.color(85, 255, 85);
+  private static final TextColor TREND_DOWN_COLOR = TextColor.color(255, 85, 85);
+  private static final int NO_TREND = Integer.MIN_VALUE;
   private static final String CURRENCY_SYMBOL = "$";
+  private static final int DISPLAY_TEXT_CACHE_SIZE = 64;
+  private static final long DISPLAY_TEXT_EXPIRY_MS = 300000;
+  private static final int ITEM_NAME_CACHE_SIZE = 512;
 
-  private final AtomicReference<ItemData> currentItem = new AtomicReference<>(null);
+  private ItemData currentItem = null;
+  private ItemStack lastHeldStack = null;
+  private int lastHeldSize = 0;
 
   private TextLine nameLine;
-  private long lastAutoDetect = 0L;
-
-  private ScheduledExecutorService executor = null;
-  private final Object executorLock = new Object();
 
-  private final ConcurrentHashMap<String, CachedPriceData> priceCache = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, Boolean> pendingRequests = new ConcurrentHashMap<>();
-  private final ConcurrentHashMap<String, Component> itemNameCache = new ConcurrentHashMap<>();
+  private final BoundedCache<String, Component> itemNameCache =
+      new BoundedCache<>(ITEM_NAME_CACHE_SIZE, 0L);
+  private final DisplayTextKey displayTextProbe = new DisplayTextKey();
+  private final TickBudget tickBudget = TickBudget.of("item_price");
+  private final BoundedCache<DisplayTextKey, Component> displayTextCache =
+      new BoundedCache<>(DISPLAY_TEXT_CACHE_SIZE, DISPLAY_TEXT_EXPIRY_MS);
 
   private final OPSuchtMarktConfig config;
+  private final MarketDataService marketDataService;
 
   private final Component loadingComponent;
   private final Component noItemComponent;
   private final Component noPriceComponent;
   private final Component unknownItemComponent;
+  private final Component staleComponent;
+  private final Component itemNotFoundComponent;
+  private final Component separatorComponent;
 
   private TextColor buyColorCache;
   private TextColor sellColorCache;
   private net.labymod.api.util.Color lastConfigBuyColor;
   private net.labymod.api.util.Color lastConfigSellColor;
 
-  private final NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.GERMAN);
-
   private volatile boolean needsDisplayUpdate = false;
   private DisplayMode lastDisplayMode;
   private boolean lastShowItemName;
   private boolean lastUseStackSize;
+  private TrendWindow lastTrendWindow;
+
+  private String trendItemId;
+  private TrendWindow trendCacheWindow;
+  private long trendHistoryVersion;
+  private long trendMinute;
+  private int trendBuyPermille = NO_TREND;
+  private int trendSellPermille = NO_TREND;
 
   private record ItemData(String id, int stackSize) {}
-  private record PriceData(boolean itemNotFound, Double buy, Double sell) {}
-  private record CachedPriceData(PriceData priceData, long timestamp) {}
 
-  public OPSuchtMarktWidgets(HudWidgetCategory category, OPSuchtMarktConfig config) {
+  public OPSuchtMarktWidgets(HudWidgetCategory category, OPSuchtMarktConfig config,
+      MarketDataService marketDataService) {
     super("opsucht_item_price");
     this.config = config;
+    this.marketDataService = marketDataService;
 
     this.loadingComponent = Component.translatable("opsuchtmarkt.messages.loading");
     this.noItemComponent = Component.translatable("opsuchtmarkt.messages.noItem");
     this.noPriceComponent = Component.translatable("opsuchtmarkt.messages.noPrice");
     this.unknownItemComponent = Component.translatable("opsuchtmarkt.messages.unknown");
+    this.staleComponent = Component.translatable("opsuchtmarkt.messages.stale")
+        .color(SEPARATOR_COLOR);
+    this.itemNotFoundComponent = Component.translatable("opsuchtmarkt.prices.noPrice");
+    this.separatorComponent = Component.text(" - ").color(SEPARATOR_COLOR);
 
     try {
       this.setIcon(Icon.texture(ResourceLocation.create("opsuchtmarkt",
@@ -99,9 +104,19 @@ public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
     }
 
     initializeColorCache();
+    registerCacheGauges("cache.itemNames.", this.itemNameCache);
+    registerCacheGauges("cache.displayText.", this.displayTextCache);
+    this.marketDataService.addUpdateListener(() -> this.needsDisplayUpdate = true);
     this.bindCategory(category);
   }
 
+  private static void registerCacheGauges(String prefix, BoundedCache<?, ?> cache) {
+    Metrics.gauge(prefix + "size", cache::size);
+    Metrics.gauge(prefix + "hits", cache::hitCount);
+    Metrics.gauge(prefix + "misses", cache::missCount);
+    Metrics.gauge(prefix + "evictions", cache::evictionCount);
+  }
+
   @Override
   public void load(TextHudWidgetConfig config) {
     super.load(config);
@@ -109,7 +124,6 @@ public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
         Component.translatable("opsuchtmarkt.hudWidget.opsucht_item_price.name"),
         this.loadingComponent
     );
-    ensureExecutorRunning();
   }
 
   private void initializeColorCache() {
@@ -137,10 +151,20 @@ public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
 
     this.buyColorCache = TextColor.color(currentBuyColor.getRed(), currentBuyColor.getGreen(), currentBuyColor.getBlue());
     this.sellColorCache = TextColor.color(currentSellColor.getRed(), currentSellColor.getGreen(), currentSellColor.getBlue());
+    needsDisplayUpdate = true;
   }
 
   @Override
   public void onTick(boolean isEditorContext) {
+    long start = this.tickBudget.begin();
+    try {
+      tick(isEditorContext);
+    } finally {
+      this.tickBudget.end(start);
+    }
+  }
+
+  private void tick(boolean isEditorContext) {
     if (isEditorContext) {
       this.nameLine.updateAndFlush(this.loadingComponent);
       this.nameLine.setState(State.VISIBLE);
@@ -149,73 +173,100 @@ public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
 
     if (this.config == null || !this.config.enabled().get()) {
       this.nameLine.setState(State.HIDDEN);
-      stopExecutorIfRunning();
+      displayTextCache.invalidateAll();
+      lastHeldStack = null;
+      lastHeldSize = 0;
+      currentItem = null;
+      needsDisplayUpdate = true;
       return;
     }
 
-    ensureExecutorRunning();
-    updateColorCacheIfNeeded();
+    tryAutoDetectHeldItem();
 
-    long now = System.currentTimeMillis();
-    if (now - lastAutoDetect > AUTO_DETECT_INTERVAL_MS) {
-      lastAutoDetect = now;
-      tryAutoDetectHeldItem();
+    if (!needsDisplayUpdate && !this.tickBudget.optionalWorkAllowed()) {
+      return;
     }
+    updateColorCacheIfNeeded();
 
     DisplayMode currentDisplayMode = this.config.displayMode().get();
     boolean currentShowItemName = this.config.showItemName().get();
     boolean currentUseStackSize = this.config.useStackSize().get();
+    TrendWindow currentTrendWindow = this.config.trendWindow().get();
 
     if (needsDisplayUpdate ||
         currentDisplayMode != lastDisplayMode ||
         currentShowItemName != lastShowItemName ||
-        currentUseStackSize != lastUseStackSize) {
+        currentUseStackSize != lastUseStackSize ||
+        currentTrendWindow != lastTrendWindow) {
 
-      updateDisplay(currentDisplayMode, currentShowItemName, currentUseStackSize);
+      updateDisplay(currentDisplayMode, currentShowItemName, currentUseStackSize,
+          currentTrendWindow);
 
       lastDisplayMode = currentDisplayMode;
       lastShowItemName = currentShowItemName;
       lastUseStackSize = currentUseStackSize;
+      lastTrendWindow = currentTrendWindow;
       needsDisplayUpdate = false;
     }
   }
 
-  private void updateDisplay(DisplayMode displayMode, boolean showItemName, boolean useStackSize) {
-    ItemData itemData = currentItem.get();
-    Component displayText = buildDisplayText(itemData, displayMode, showItemName, useStackSize);
+  private void updateDisplay(DisplayMode displayMode, boolean showItemName, boolean useStackSize,
+      TrendWindow trendWindow) {
+    ItemData itemData = currentItem;
+    Component displayText = buildDisplayText(itemData, displayMode, showItemName, useStackSize,
+        trendWindow);
     this.nameLine.updateAndFlush(displayText);
     this.nameLine.setState(State.VISIBLE);
   }
 
-  private Component buildDisplayText(ItemData itemData, DisplayMode displayMode, boolean showItemName, boolean useStackSize) {
+  private Component buildDisplayText(ItemData itemData, DisplayMode displayMode, boolean showItemName, boolean useStackSize, TrendWindow trendWindow) {
     if (itemData == null || itemData.id == null || itemData.id.isEmpty() || "unknown".equals(itemData.id)) {
       return this.noItemComponent;
     }
 
-    Component displayNameComp = formatItemIdComponent(itemData.id);
+    MarketSnapshot snapshot = marketDataService.snapshot();
+    if (snapshot == null) {
+      return this.loadingComponent;
+    }
+    PriceIndex prices = snapshot.prices();
+    int slot = prices.indexOf(itemData.id);
+    if (slot < 0) {
+      return this.itemNotFoundComponent;
+    }
 
-    CachedPriceData cached = priceCache.get(itemData.id);
-    if (cached != null && System.currentTimeMillis() - cached.timestamp < PRICE_CACHE_DURATION_MS) {
-      PriceData priceData = cached.priceData;
-      if (priceData.itemNotFound) {
-        return Component.translatable("opsuchtmarkt.prices.noPrice");
-      } else {
-        Component priceText = createPriceText(priceData.buy, priceData.sell,
-            itemData.stackSize, useStackSize, displayMode);
-        return createDisplayText(displayNameComp, priceText, itemData.stackSize, useStackSize, showItemName);
-      }
+    double buyPrice = prices.buyPrice(slot);
+    double sellPrice = prices.sellPrice(slot);
+    int stackSize = useStackSize ? itemData.stackSize : 1;
+
+    updateTrend(itemData.id, trendWindow);
+    int buyTrend = this.trendBuyPermille;
+    int sellTrend = this.trendSellPermille;
+
+    displayTextProbe.set(itemData.id, stackSize, displayMode, showItemName, buyPrice, sellPrice,
+        buyTrend, sellTrend, snapshot.stale(), buyColorCache, sellColorCache);
+    Component cached = displayTextCache.get(displayTextProbe);
+    if (cached != null) {
+      return cached;
     }
 
-    return this.loadingComponent;
+    Component displayNameComp = formatItemIdComponent(itemData.id);
+    Component priceText = createPriceText(buyPrice, sellPrice, buyTrend, sellTrend, stackSize,
+        displayMode);
+    Component displayText = createDisplayText(displayNameComp, priceText, stackSize, showItemName);
+    if (snapshot.stale()) {
+      displayText = Component.empty().append(displayText).append(this.staleComponent);
+    }
+    displayTextCache.put(displayTextProbe.copy(), displayText);
+    return displayText;
   }
 
-  private Component createDisplayText(Component displayNameComp, Component priceText, int stackSize, boolean useStackSize, boolean showItemName) {
+  private Component createDisplayText(Component displayNameComp, Component priceText, int stackSize, boolean showItemName) {
     if (!showItemName) {
       return priceText;
     }
 
     Component nameComp = displayNameComp;
-    if (useStackSize && stackSize > 1) {
+    if (stackSize > 1) {
       nameComp = Component.empty()
           .append(displayNameComp)
           .append(Component.text(" (" + stackSize + ")"));
@@ -223,80 +274,135 @@ public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
 
     return Component.empty()
         .append(nameComp)
-        .append(Component.text(" - ").color(SEPARATOR_COLOR))
+        .append(this.separatorComponent)
         .append(priceText);
   }
 
-  private Component createPriceText(Double buyPrice, Double sellPrice, int stackSize, boolean useStackSize, DisplayMode mode) {
-    int total = useStackSize ? stackSize : 1;
+  private Component createPriceText(double buyPrice, double sellPrice, int buyTrend, int sellTrend, int total, DisplayMode mode) {
 
     switch (mode) {
       case BUY:
-        if (buyPrice != null && buyPrice > 0) {
+        if (buyPrice > 0) {
           double tb = buyPrice * total;
-          return Component.text(CURRENCY_SYMBOL + numberFormat.format(tb)).color(buyColorCache);
+          return withTrend(Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, tb)).color(buyColorCache), buyTrend);
         } else {
           return Component.translatable("opsuchtmarkt.prices.noBuyPrice").color(buyColorCache);
         }
       case SELL:
-        if (sellPrice != null && sellPrice > 0) {
+        if (sellPrice > 0) {
           double ts = sellPrice * total;
-          return Component.text(CURRENCY_SYMBOL + numberFormat.format(ts)).color(sellColorCache);
+          return withTrend(Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, ts)).color(sellColorCache), sellTrend);
         } else {
           return Component.translatable("opsuchtmarkt.prices.noSellPrice").color(sellColorCache);
         }
       case BOTH:
-        Component b = (buyPrice != null && buyPrice > 0)
-            ? Component.text(CURRENCY_SYMBOL + numberFormat.format(buyPrice * total)).color(buyColorCache)
+        Component b = (buyPrice > 0)
+            ? withTrend(Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, buyPrice * total)).color(buyColorCache), buyTrend)
             : Component.translatable("opsuchtmarkt.prices.noBuyPrice").color(buyColorCache);
-        Component s = (sellPrice != null && sellPrice > 0)
-            ? Component.text(CURRENCY_SYMBOL + numberFormat.format(sellPrice * total)).color(sellColorCache)
+        Component s = (sellPrice > 0)
+            ? withTrend(Component.text(CurrencyFormatter.format(CURRENCY_SYMBOL, sellPrice * total)).color(sellColorCache), sellTrend)
             : Component.translatable("opsuchtmarkt.prices.noSellPrice").color(sellColorCache);
         return Component.empty()
             .append(b)
-            .append(Component.text(" - ").color(SEPARATOR_COLOR))
+            .append(this.separatorComponent)
             .append(s);
       default:
         return this.noPriceComponent;
     }
   }
 
+  /**
+   * Refreshes the cached trend permilles for the item. The history lookup only runs when the
+   * item, the window, the recorded prices or the current minute changed; otherwise the last
+   * values are reused without touching the history.
+   */
+  private void updateTrend(String itemId, TrendWindow window) {
+    if (window == TrendWindow.OFF) {
+      this.trendItemId = null;
+      this.trendBuyPermille = NO_TREND;
+      this.trendSellPermille = NO_TREND;
+      return;
+    }
+    PriceHistory history = marketDataService.history();
+    long version = history.version();
+    long now = System.currentTimeMillis();
+    long minute = now / 60000L;
+    if (itemId.equals(this.trendItemId) && window == this.trendCacheWindow
+        && version == this.trendHistoryVersion && minute == this.trendMinute) {
+      return;
+    }
+
+    PriceHistory.Trend trend = history.trend(itemId, window.getMillis(), now);
+    this.trendBuyPermille = trend != null ? trendPermille(trend.buyChange()) : NO_TREND;
+    this.trendSellPermille = trend != null ? trendPermille(trend.sellChange()) : NO_TREND;
+    this.trendItemId = itemId;
+    this.trendCacheWindow = window;
+    this.trendHistoryVersion = version;
+    this.trendMinute = minute;
+  }
+
+  /**
+   * Appends the price change over the trend window, e.g. {@code ▲2,5%}, to a price.
+   */
+  private Component withTrend(Component price, int permille) {
+    if (permille == NO_TREND) {
+      return price;
+    }
+    String arrow = permille > 0 ? " \u25B2" : permille < 0 ? " \u25BC" : " \u25B6";
+    TextColor color = permille > 0 ? TREND_UP_COLOR
+        : permille < 0 ? TREND_DOWN_COLOR : SEPARATOR_COLOR;
+    int abs = Math.abs(permille);
+    return Component.empty()
+        .append(price)
+        .append(Component.text(arrow + (abs / 10) + "," + (abs % 10) + "%").color(color));
+  }
+
+  /**
+   * A relative change rounded to tenths of a percent, which is all the widget shows, so the
+   * display text cache only misses when the shown value changes.
+   */
+  private static int trendPermille(double change) {
+    if (Double.isNaN(change) || Double.isInfinite(change)) {
+      return NO_TREND;
+    }
+    return (int) Math.max(-1_000_000, Math.min(1_000_000, Math.round(change * 1000.0)));
+  }
+
   private void tryAutoDetectHeldItem() {
-    ItemData newItemData = null;
+    ItemStack stk = null;
     try {
       if (labyAPI().minecraft() != null && labyAPI().minecraft().clientPlayer() != null) {
-        ItemStack stk = labyAPI().minecraft().clientPlayer().getMainHandItemStack();
-        if (stk != null && !stk.isAir()) {
-          String id = getItemIdFromIdentifier(stk);
-          if (id != null && !id.isEmpty() && !"unknown".equals(id)) {
-            newItemData = new ItemData(id, getStackSize(stk));
-          }
-        }
+        stk = labyAPI().minecraft().clientPlayer().getMainHandItemStack();
       }
     } catch (Throwable t) {
+      Metrics.recordError("item_price.heldItem", t);
     }
-
-    ItemData oldItemData = currentItem.getAndSet(newItemData);
-
-    if (!Objects.equals(oldItemData, newItemData)) {
-      needsDisplayUpdate = true;
-      if (newItemData != null) {
-        loadPriceData(newItemData.id);
-      }
+    if (stk != null && stk.isAir()) {
+      stk = null;
     }
-  }
 
-  private void loadPriceData(String itemId) {
-    CachedPriceData cached = priceCache.get(itemId);
-    if (cached != null && System.currentTimeMillis() - cached.timestamp < PRICE_CACHE_DURATION_MS) {
+    int stackSize = stk != null ? getStackSize(stk) : 0;
+    if (stk == lastHeldStack && stackSize == lastHeldSize) {
       return;
     }
+    lastHeldStack = stk;
+    lastHeldSize = stackSize;
 
-    if (pendingRequests.putIfAbsent(itemId, Boolean.TRUE) != null) {
-      return;
+    ItemData newItemData = null;
+    if (stk != null) {
+      String id = getItemIdFromIdentifier(stk);
+      if (id != null && !id.isEmpty() && !"unknown".equals(id)) {
+        newItemData = new ItemData(id, stackSize);
+      }
     }
 
-    updatePriceFromAPI(itemId);
+    if (!Objects.equals(currentItem, newItemData)) {
+      currentItem = newItemData;
+      needsDisplayUpdate = true;
+      if (newItemData != null && marketDataService.snapshot() == null) {
+        marketDataService.lookup(newItemData.id).thenRun(() -> needsDisplayUpdate = true);
+      }
+    }
   }
 
   private int getStackSize(ItemStack stack) {
@@ -323,114 +429,82 @@ public class OPSuchtMarktWidgets extends TextHudWidget<TextHudWidgetConfig> {
       return this.unknownItemComponent;
     }
 
-    return itemNameCache.computeIfAbsent(itemId, id -> {
-      String[] parts = id.toLowerCase(Locale.ROOT).split("_");
-      StringBuilder sb = new StringBuilder();
-      for (String part : parts) {
-        if (sb.length() > 0) {
-          sb.append(" ");
-        }
-        if (part.length() >= 1) {
-          sb.append(part.substring(0, 1).toUpperCase(Locale.ROOT));
-          if (part.length() > 1) {
-            sb.append(part.substring(1));
-          }
-        }
-      }
-      return Component.text(sb.toString());
-    });
-  }
-
-  private void updatePriceFromAPI(String itemId) {
-    String apiUrl = "https://api.opsucht.net/market/price/" + itemId.toUpperCase(Locale.ROOT);
-    HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create(apiUrl))
-        .timeout(Duration.ofSeconds(3))
-        .header("User-Agent", "LabyMod-OPSuchtMarkt/1.0")
-        .GET()
-        .build();
-
-    HTTP_CLIENT.sendAsync(request, BodyHandlers.ofString())
-        .whenCompleteAsync((resp, ex) -> {
-          PriceData newPriceData = parsePriceData(itemId, resp, ex);
-          priceCache.put(itemId, new CachedPriceData(newPriceData, System.currentTimeMillis()));
-          pendingRequests.remove(itemId);
-          needsDisplayUpdate = true;
-        }, executor);
+    return itemNameCache.computeIfAbsent(itemId,
+        id -> Component.text(ItemNames.formatMaterialName(id)));
   }
 
-  private PriceData parsePriceData(String itemId, HttpResponse<String> resp, Throwable ex) {
-    try {
-      if (ex != null || resp == null) {
-        return new PriceData(false, null, null);
-      }
-      if (resp.statusCode() == 404) {
-        return new PriceData(true, null, null);
-      }
-      if (resp.statusCode() != 200) {
-        return new PriceData(false, null, null);
-      }
-
-      String body = resp.body();
-      if (body == null || body.isEmpty() || body.equals("{}")) {
-        return new PriceData(true, null, null);
-      }
-
-      JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-      JsonArray arr = json.getAsJsonArray(itemId.toUpperCase(Locale.ROOT));
-
-      if (arr == null || arr.size() == 0) {
-        return new PriceData(true, null, null);
-      }
-
-      Double buy = null, sell = null;
-      for (JsonElement e : arr) {
-        JsonObject o = e.getAsJsonObject();
-        String side = o.get("orderSide").getAsString();
-        double p = o.get("price").getAsDouble();
-        if ("BUY".equals(side)) buy = p;
-        else if ("SELL".equals(side)) sell = p;
-      }
-      return new PriceData(false, buy, sell);
-
-    } catch (Exception e) {
-      return new PriceData(false, null, null);
+  private static final class DisplayTextKey {
+
+    private String itemId;
+    private int stackSize;
+    private DisplayMode displayMode;
+    private boolean showItemName;
+    private double buyPrice;
+    private double sellPrice;
+    private int buyTrend;
+    private int sellTrend;
+    private boolean stale;
+    private TextColor buyColor;
+    private TextColor sellColor;
+
+    void set(String itemId, int stackSize, DisplayMode displayMode, boolean showItemName,
+        double buyPrice, double sellPrice, int buyTrend, int sellTrend, boolean stale,
+        TextColor buyColor, TextColor sellColor) {
+      this.itemId = itemId;
+      this.stackSize = stackSize;
+      this.displayMode = displayMode;
+      this.showItemName = showItemName;
+      this.buyPrice = buyPrice;
+      this.sellPrice = sellPrice;
+      this.buyTrend = buyTrend;
+      this.sellTrend = sellTrend;
+      this.stale = stale;
+      this.buyColor = buyColor;
+      this.sellColor = sellColor;
     }
-  }
 
-  private void cleanupOldCacheEntries() {
-    long now = System.currentTimeMillis();
-    priceCache.entrySet().removeIf(e -> now - e.getValue().timestamp > PRICE_CACHE_DURATION_MS * 2);
-    itemNameCache.clear();
-  }
-
-  private void ensureExecutorRunning() {
-    synchronized (executorLock) {
-      if (executor == null || executor.isShutdown() || executor.isTerminated()) {
-        executor = Executors.newSingleThreadScheduledExecutor(r -> {
-          Thread t = new Thread(r, "OPSuchtMarkt-API-Worker");
-          t.setDaemon(true);
-          return t;
-        });
-        executor.scheduleAtFixedRate(this::cleanupOldCacheEntries,
-            CACHE_CLEANUP_INTERVAL_MS, CACHE_CLEANUP_INTERVAL_MS, TimeUnit.MILLISECONDS);
-      }
+    DisplayTextKey copy() {
+      DisplayTextKey key = new DisplayTextKey();
+      key.set(itemId, stackSize, displayMode, showItemName, buyPrice, sellPrice, buyTrend,
+          sellTrend, stale, buyColor, sellColor);
+      return key;
     }
-  }
 
-  private void stopExecutorIfRunning() {
-    synchronized (executorLock) {
-      if (executor != null && !executor.isShutdown()) {
-        executor.shutdownNow();
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof DisplayTextKey other)) {
+        return false;
       }
-      executor = null;
-      priceCache.clear();
-      itemNameCache.clear();
-      pendingRequests.clear();
+      return stackSize == other.stackSize
+          && displayMode == other.displayMode
+          && showItemName == other.showItemName
+          && buyTrend == other.buyTrend
+          && sellTrend == other.sellTrend
+          && stale == other.stale
+          && Double.doubleToLongBits(buyPrice) == Double.doubleToLongBits(other.buyPrice)
+          && Double.doubleToLongBits(sellPrice) == Double.doubleToLongBits(other.sellPrice)
+          && buyColor == other.buyColor
+          && sellColor == other.sellColor
+          && itemId.equals(other.itemId);
     }
-  }
 
-  public void shutdown() {
-    stopExecutorIfRunning();
+    @Override
+    public int hashCode() {
+      int result = itemId.hashCode();
+      result = 31 * result + stackSize;
+      result = 31 * result + displayMode.ordinal();
+      result = 31 * result + (showItemName ? 1 : 0);
+      result = 31 * result + Double.hashCode(buyPrice);
+      result = 31 * result + Double.hashCode(sellPrice);
+      result = 31 * result + buyTrend;
+      result = 31 * result + sellTrend;
+      result = 31 * result + (stale ? 1 : 0);
+      result = 31 * result + System.identityHashCode(buyColor);
+      result = 31 * result + System.identityHashCode(sellColor);
+      return result;
+    }
   }
-}
\ No newline at end of file
+}
@@ -10,38 +10,53 @@ import net.labymod.api.client.gui.hud.hudwidget.text.TextLine;
 import net.labymod.api.client.gui.hud.hudwidget.text.TextLine.State;
 import net.labymod.api.client.gui.icon.Icon;
 import net.labymod.api.client.resources.ResourceLocation;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import net.craftportal.http.ApiEndpoints;
+import net.craftportal.http.ApiHttpClient;
+import net.craftportal.http.ApiResponse;
+import net.craftportal.metrics.Histogram;
+import net.craftportal.metrics.Metrics;
+import net.craftportal.metrics.TickBudget;
+import net.craftportal.scheduler.AddonScheduler;
+import net.craftportal.scheduler.PollingPolicy;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class OPSuchtRecordWidget extends TextHudWidget<TextHudWidgetConfig> {
 
-  private static final String API_URL = "https://craftportal.net/api/opsucht-record";
-  private static final int UPDATE_RATE_SECONDS = 60;
+  private static final long UPDATE_INTERVAL_MS = 60000;
+  private static final long MAX_IDLE_INTERVAL_MS = 300000;
+  private static final long MAX_BACKOFF_MS = 600000;
+  private static final long INACTIVE_AFTER_MS = 5000;
+  private static final long STALE_RECORD_TTL_MS = 1800000;
   private static final Duration TIMEOUT = Duration.ofSeconds(5);
-  private static final HttpClient CLIENT = HttpClient.newBuilder()
-      .connectTimeout(TIMEOUT)
-      .build();
-  private static final HttpRequest REQUEST = HttpRequest.newBuilder()
-      .uri(URI.create(API_URL))
-      .GET()
-      .timeout(TIMEOUT)
-      .header("Accept", "application/json")
-      .build();
+  private static final ApiHttpClient CLIENT = new ApiHttpClient("record");
+  private static final Histogram PARSE_TIME = Metrics.histogram("parse.record",
+      Histogram.Unit.NANOS);
 
   private TextLine line;
-  private Component cachedComponent;
-  private ScheduledExecutorService scheduler;
-
-  public OPSuchtRecordWidget(HudWidgetCategory category) {
+  private volatile Component cachedComponent;
+  private Component displayedComponent;
+  private volatile long lastActiveTick = 0L;
+  private volatile long recordConfirmedAt = 0L;
+  private final AtomicBoolean fetching = new AtomicBoolean(false);
+  private final TickBudget tickBudget = TickBudget.of("record_widget");
+  private final PollingPolicy pollPolicy = new PollingPolicy(UPDATE_INTERVAL_MS,
+      MAX_IDLE_INTERVAL_MS, MAX_BACKOFF_MS);
+
+  private final ApiEndpoints endpoints;
+  private final AddonScheduler scheduler;
+
+  public OPSuchtRecordWidget(HudWidgetCategory category, ApiEndpoints endpoints,
+      AddonScheduler scheduler) {
     super("opsucht_record_widget");
+    this.endpoints = endpoints;
+    this.scheduler = scheduler;
     setIcon(Icon.texture(ResourceLocation.create("opsuchtmarkt", "textures/record_widget.png")));
     bindCategory(category);
+    scheduler.schedulePolling(this::fetchRecordIfActive, pollPolicy);
   }
 
   @Override
@@ -51,26 +66,54 @@ public class OPSuchtRecordWidget extends TextHudWidget<TextHudWidgetConfig> {
         Component.translatable("opsuchtmarkt.hudWidget.record_widget.name"),
         Component.translatable("opsuchtmarkt.messages.loading")
     );
+  }
 
-    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-      Thread t = new Thread(r, "OPSuchtRecord-Fetcher");
-      t.setDaemon(true);
-      return t;
-    });
-
-    scheduler.scheduleAtFixedRate(this::fetchRecord, 0, UPDATE_RATE_SECONDS, TimeUnit.SECONDS);
+  private void fetchRecordIfActive() {
+    if (System.currentTimeMillis() - lastActiveTick > INACTIVE_AFTER_MS) {
+      return;
+    }
+    fetchRecord();
   }
 
+  /**
+   * Fetches the record unless a fetch is already running; the polled and the on-demand fetch
+   * share this guard, so an older response can never overwrite a newer one.
+   */
   private void fetchRecord() {
+    expireStaleRecord();
+    if (!fetching.compareAndSet(false, true)) {
+      return;
+    }
+    if (!pollPolicy.tryAcquire()) {
+      fetching.set(false);
+      return;
+    }
     try {
-      HttpResponse<String> response = CLIENT.send(REQUEST, HttpResponse.BodyHandlers.ofString());
-      if (response.statusCode() != 200) {
-        cachedComponent = null;
-        return;
-      }
+      JsonElement root;
+      try (ApiResponse response = CLIENT.send(endpoints.record(), TIMEOUT,
+          cachedComponent != null)) {
+        if (response.isNotModified()) {
+          pollPolicy.recordSuccess(false);
+          recordConfirmedAt = System.currentTimeMillis();
+          return;
+        }
+        if (response.statusCode() == 404) {
+          pollPolicy.recordSuccess(cachedComponent != null);
+          cachedComponent = null;
+          return;
+        }
+        if (!response.isOk()) {
+          pollPolicy.recordFailure(response.retryAfterMillis());
+          return;
+        }
 
-      String json = response.body();
-      JsonElement root = JsonParser.parseString(json);
+        long parseStart = System.nanoTime();
+        try (Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+          root = JsonParser.parseReader(reader);
+        }
+        PARSE_TIME.recordSince(parseStart);
+        response.markProcessed();
+      }
 
       String recordValue = null;
       if (root != null && root.isJsonObject()) {
@@ -88,28 +131,68 @@ public class OPSuchtRecordWidget extends TextHudWidget<TextHudWidgetConfig> {
 
       if (recordValue != null) {
         Component newComponent = Component.text(recordValue);
-        if (!newComponent.equals(cachedComponent)) {
+        boolean changed = !newComponent.equals(cachedComponent);
+        if (changed) {
           cachedComponent = newComponent;
         }
+        pollPolicy.recordSuccess(changed);
+        recordConfirmedAt = System.currentTimeMillis();
       } else {
+        pollPolicy.recordSuccess(cachedComponent != null);
         cachedComponent = null;
       }
 
     } catch (Exception e) {
+      Metrics.recordError("record.fetch", e);
+      pollPolicy.recordFailure();
+    } finally {
+      fetching.set(false);
+    }
+  }
+
+  /**
+   * Failed polls keep showing the last record; it is hidden once it has not been confirmed for
+   * {@value #STALE_RECORD_TTL_MS} ms.
+   */
+  private void expireStaleRecord() {
+    if (cachedComponent != null
+        && System.currentTimeMillis() - recordConfirmedAt > STALE_RECORD_TTL_MS) {
       cachedComponent = null;
     }
   }
 
   @Override
   public void onTick(boolean editor) {
+    long start = this.tickBudget.begin();
+    try {
+      tick(editor);
+    } finally {
+      this.tickBudget.end(start);
+    }
+  }
+
+  private void tick(boolean editor) {
     if (editor) {
       line.updateAndFlush(Component.text("468"));
       line.setState(State.VISIBLE);
+      displayedComponent = null;
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    if (now - lastActiveTick > INACTIVE_AFTER_MS) {
+      scheduler.executeIfConnected(this::fetchRecord);
+    }
+    lastActiveTick = now;
+
+    Component component = cachedComponent;
+    if (component == displayedComponent) {
       return;
     }
+    displayedComponent = component;
 
-    if (cachedComponent != null) {
-      line.updateAndFlush(cachedComponent);
+    if (component != null) {
+      line.updateAndFlush(component);
       line.setState(State.VISIBLE);
     } else {
       line.setState(State.HIDDEN);
@@ -0,0 +1,129 @@
+package net.craftportal.hud;
+
+import net.craftportal.market.PriceIndex;
+import net.labymod.api.client.resources.ResourceLocation;
+import net.labymod.api.client.world.item.ItemStack;
+
+/**
+ * Remembers which stack, count and value every tracked slot had at its last valuation, so a tick
+ * only re-values the slots whose stack instance or count changed and adjusts the totals by the
+ * difference.
+ */
+class SlotValuationTable {
+
+  private final ItemStack[] stacks;
+  private final int[] counts;
+  private final double[] buyValues;
+  private final double[] sellValues;
+
+  private PriceIndex prices;
+  private int totalItems;
+  private double totalBuyValue;
+  private double totalSellValue;
+
+  SlotValuationTable(int slotCount) {
+    this.stacks = new ItemStack[slotCount];
+    this.counts = new int[slotCount];
+    this.buyValues = new double[slotCount];
+    this.sellValues = new double[slotCount];
+  }
+
+  /**
+   * Switches to a new price index. All slots start from zero again and are re-valued on their
+   * next update, which also drops any rounding drift from the incremental totals.
+   */
+  void setPrices(PriceIndex prices) {
+    if (this.prices == prices) {
+      return;
+    }
+    clear();
+    this.prices = prices;
+  }
+
+  /**
+   * Updates one slot and returns whether the totals changed.
+   */
+  boolean update(int slot, ItemStack stack) {
+    if (stack != null && stack.isAir()) {
+      stack = null;
+    }
+    int count = stack != null ? getStackSize(stack) : 0;
+    if (stack == this.stacks[slot] && count == this.counts[slot]) {
+      return false;
+    }
+
+    double buyValue = 0.0;
+    double sellValue = 0.0;
+    if (stack != null && this.prices != null) {
+      int priceSlot = this.prices.indexOf(getItemPath(stack));
+      if (priceSlot >= 0) {
+        double buyPrice = this.prices.buyPrice(priceSlot);
+        double sellPrice = this.prices.sellPrice(priceSlot);
+        if (!Double.isNaN(buyPrice)) {
+          buyValue = buyPrice * count;
+        }
+        if (!Double.isNaN(sellPrice)) {
+          sellValue = sellPrice * count;
+        }
+      }
+    }
+
+    boolean changed = count != this.counts[slot]
+        || buyValue != this.buyValues[slot]
+        || sellValue != this.sellValues[slot];
+
+    this.totalItems += count - this.counts[slot];
+    this.totalBuyValue += buyValue - this.buyValues[slot];
+    this.totalSellValue += sellValue - this.sellValues[slot];
+
+    this.stacks[slot] = stack;
+    this.counts[slot] = count;
+    this.buyValues[slot] = buyValue;
+    this.sellValues[slot] = sellValue;
+    return changed;
+  }
+
+  void clear() {
+    for (int slot = 0; slot < this.stacks.length; slot++) {
+      this.stacks[slot] = null;
+      this.counts[slot] = 0;
+      this.buyValues[slot] = 0.0;
+      this.sellValues[slot] = 0.0;
+    }
+    this.prices = null;
+    this.totalItems = 0;
+    this.totalBuyValue = 0.0;
+    this.totalSellValue = 0.0;
+  }
+
+  int totalItems() {
+    return this.totalItems;
+  }
+
+  double totalBuyValue() {
+    return this.totalBuyValue;
+  }
+
+  double totalSellValue() {
+    return this.totalSellValue;
+  }
+
+  private static int getStackSize(ItemStack stack) {
+    try {
+      return stack.getSize();
+    } catch (Throwable t) {
+      return 1;
+    }
+  }
+
+  private static String getItemPath(ItemStack stack) {
+    try {
+      ResourceLocation loc = stack.getIdentifier();
+      if (loc != null) {
+        return loc.getPath();
+      }
+    } catch (Exception e) {
+    }
+    return null;
+  }
+}
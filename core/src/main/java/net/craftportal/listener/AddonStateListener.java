@@ -0,0 +1,102 @@
+package net.craftportal.listener;
+
+import net.craftportal.config.OPSuchtMarktConfig;
+import net.craftportal.market.PriceHistory;
+import net.craftportal.metrics.TickBudget;
+import net.craftportal.scheduler.AddonScheduler;
+import net.craftportal.scheduler.ConnectionState;
+import net.labymod.api.client.Minecraft;
+import net.labymod.api.client.network.server.ServerAddress;
+import net.labymod.api.client.network.server.ServerData;
+import net.labymod.api.event.Phase;
+import net.labymod.api.event.Subscribe;
+import net.labymod.api.event.client.lifecycle.GameShutdownEvent;
+import net.labymod.api.event.client.lifecycle.GameTickEvent;
+import net.labymod.api.event.client.network.server.ServerDisconnectEvent;
+import net.labymod.api.event.client.network.server.ServerJoinEvent;
+import java.util.Locale;
+
+import static net.labymod.api.Laby.labyAPI;
+
+public class AddonStateListener {
+
+  private static final String OPSUCHT_HOST = "opsucht.net";
+
+  private final OPSuchtMarktConfig config;
+  private final AddonScheduler scheduler;
+  private final PriceHistory priceHistory;
+  private volatile boolean onOPSucht;
+
+  public AddonStateListener(OPSuchtMarktConfig config, AddonScheduler scheduler,
+      PriceHistory priceHistory) {
+    this.config = config;
+    this.scheduler = scheduler;
+    this.priceHistory = priceHistory;
+    try {
+      this.onOPSucht = isOPSucht(labyAPI().serverController().getCurrentServerData());
+    } catch (Throwable t) {
+    }
+  }
+
+  @Subscribe
+  public void onServerJoin(ServerJoinEvent event) {
+    this.onOPSucht = isOPSucht(event.serverData());
+  }
+
+  @Subscribe
+  public void onServerDisconnect(ServerDisconnectEvent event) {
+    this.onOPSucht = false;
+  }
+
+  @Subscribe
+  public void onGameShutdown(GameShutdownEvent event) {
+    this.scheduler.stop();
+    this.priceHistory.close();
+  }
+
+  @Subscribe
+  public void onGameTick(GameTickEvent event) {
+    if (event.phase() != Phase.PRE) {
+      return;
+    }
+
+    TickBudget.setBudgetNanos(this.config.tickBudgetMicros().get() * 1000L);
+
+    boolean enabled = this.config.enabled().get();
+    if (enabled != this.scheduler.isRunning()) {
+      if (enabled) {
+        this.scheduler.start();
+      } else {
+        this.scheduler.stop();
+      }
+    }
+    this.scheduler.setConnectionState(connectionState());
+  }
+
+  private ConnectionState connectionState() {
+    if (!this.onOPSucht && this.config.pauseOutsideOPSucht().get()) {
+      return ConnectionState.STOPPED;
+    }
+    try {
+      Minecraft minecraft = labyAPI().minecraft();
+      if (minecraft.isPaused() || !minecraft.minecraftWindow().isFocused()) {
+        return ConnectionState.BACKGROUND;
+      }
+    } catch (Throwable t) {
+    }
+    return ConnectionState.ACTIVE;
+  }
+
+  private static boolean isOPSucht(ServerData serverData) {
+    ServerAddress address = serverData != null ? serverData.address() : null;
+    String host = address != null ? address.getHost() : null;
+    if (host == null) {
+      return false;
+    }
+    host = host.trim().toLowerCase(Locale.ROOT);
+    if (host.endsWith(".")) {
+      host = host.substring(0, host.length() - 1);
+    }
+    return host.equals(OPSUCHT_HOST) || host.endsWith("." + OPSUCHT_HOST);
+  }
+}
@@ -0,0 +1,244 @@
+package net.craftportal.market;
+
+import net.craftportal.config.OPSuchtMarktConfig;
+import net.craftportal.http.ApiEndpoints;
+import net.craftportal.http.ApiHttpClient;
+import net.craftportal.http.ApiResponse;
+import net.craftportal.metrics.Histogram;
+import net.craftportal.metrics.Metrics;
+import net.craftportal.scheduler.AddonScheduler;
+import net.craftportal.scheduler.PollingPolicy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MarketDataService {
+
+  private static final ApiHttpClient API_CLIENT = new ApiHttpClient("market");
+  private static final Histogram PARSE_TIME = Metrics.histogram("parse.market",
+      Histogram.Unit.NANOS);
+
+  private static final long REFRESH_INTERVAL_MS = 30000;
+  private static final long MAX_IDLE_INTERVAL_MS = 120000;
+  private static final long MAX_BACKOFF_MS = 300000;
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+  private static final long LOOKUP_BATCH_WINDOW_MS = 50;
+  private static final long SOFT_TTL_MS = 180000;
+  private static final long HARD_TTL_MS = 12 * 60 * 60 * 1000L;
+  private static final long NEGATIVE_TTL_MS = 10000;
+  private static final long EXPIRY_CHECK_INTERVAL_MS = 5000;
+
+  private final OPSuchtMarktConfig config;
+  private final ApiEndpoints endpoints;
+  private final PriceSnapshotStore snapshotStore;
+  private final PriceHistory history;
+  private final AtomicReference<MarketSnapshot> snapshot = new AtomicReference<>(null);
+  private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+  private final ConcurrentHashMap<String, CompletableFuture<PriceQuote>> pendingLookups =
+      new ConcurrentHashMap<>();
+  private final AtomicBoolean lookupRefreshQueued = new AtomicBoolean(false);
+  private final AtomicBoolean refreshing = new AtomicBoolean(false);
+  private final PollingPolicy refreshPolicy = new PollingPolicy(REFRESH_INTERVAL_MS,
+      MAX_IDLE_INTERVAL_MS, MAX_BACKOFF_MS);
+  private final AddonScheduler scheduler;
+  private volatile long lastFailureAt;
+
+  public MarketDataService(OPSuchtMarktConfig config, ApiEndpoints endpoints,
+      PriceSnapshotStore snapshotStore, PriceHistory history, AddonScheduler scheduler) {
+    this.config = config;
+    this.endpoints = endpoints;
+    this.snapshotStore = snapshotStore;
+    this.history = history;
+    this.scheduler = scheduler;
+    scheduler.schedulePolling(this::refresh, this.refreshPolicy);
+    scheduler.scheduleAtFixedRate(this::checkExpiry, EXPIRY_CHECK_INTERVAL_MS,
+        EXPIRY_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  public MarketSnapshot snapshot() {
+    return this.snapshot.get();
+  }
+
+  public PriceHistory history() {
+    return this.history;
+  }
+
+  public PriceIndex prices() {
+    MarketSnapshot current = this.snapshot.get();
+    return current != null ? current.prices() : null;
+  }
+
+  /**
+   * Resolves one item's prices. With a snapshot in memory the result is immediate; otherwise all
+   * callers asking for the same item share one future, and every item asked for within
+   * {@value #LOOKUP_BATCH_WINDOW_MS} ms is answered by a single bulk refresh. If that refresh
+   * fails or cannot be scheduled (scheduler not running, connection stopped), the futures fail
+   * too, and for {@value #NEGATIVE_TTL_MS} ms new lookups fail at once instead of queueing
+   * another request.
+   */
+  public CompletableFuture<PriceQuote> lookup(String itemId) {
+    MarketSnapshot current = this.snapshot.get();
+    if (current != null) {
+      return CompletableFuture.completedFuture(PriceQuote.of(current.prices(), itemId));
+    }
+    if (System.currentTimeMillis() - this.lastFailureAt < NEGATIVE_TTL_MS) {
+      return CompletableFuture.failedFuture(new IOException("Market prices unavailable"));
+    }
+
+    CompletableFuture<PriceQuote> future = this.pendingLookups.computeIfAbsent(
+        itemId.toUpperCase(Locale.ROOT), key -> new CompletableFuture<>());
+
+    current = this.snapshot.get();
+    if (current != null) {
+      completePendingLookups(current);
+    } else if (this.lookupRefreshQueued.compareAndSet(false, true)) {
+      boolean queued = this.scheduler.scheduleIfConnected(() -> {
+        this.lookupRefreshQueued.set(false);
+        refresh();
+      }, LOOKUP_BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+      if (!queued) {
+        this.lookupRefreshQueued.set(false);
+        recordFailure(new IOException("Market refresh not scheduled"));
+      }
+    }
+    return future;
+  }
+
+  public void addUpdateListener(Runnable listener) {
+    this.updateListeners.add(listener);
+  }
+
+  public void loadPersistedSnapshot() {
+    if (this.snapshot.get() != null) {
+      return;
+    }
+    MarketSnapshot persisted = this.snapshotStore.load();
+    if (persisted == null || System.currentTimeMillis() - persisted.timestamp() > HARD_TTL_MS) {
+      return;
+    }
+    if (this.snapshot.compareAndSet(null, persisted)) {
+      completePendingLookups(persisted);
+      notifyListeners();
+    }
+  }
+
+  private void refresh() {
+    if (this.config == null || !this.config.enabled().get()) {
+      return;
+    }
+    if (!this.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    if (!this.refreshPolicy.tryAcquire()) {
+      this.refreshing.set(false);
+      return;
+    }
+
+    MarketSnapshot previous = this.snapshot.get();
+    try (ApiResponse response = API_CLIENT.send(this.endpoints.marketPrices(), REQUEST_TIMEOUT,
+        previous != null)) {
+      if (response.isNotModified()) {
+        this.refreshPolicy.recordSuccess(false);
+        revalidate(previous);
+        return;
+      }
+      if (!response.isOk()) {
+        this.refreshPolicy.recordFailure(response.retryAfterMillis());
+        recordFailure(new IOException("HTTP " + response.statusCode()));
+        return;
+      }
+      long parseStart = System.nanoTime();
+      PriceIndex prices = MarketPricesParser.parse(response.body(),
+          previous != null ? previous.prices().size() : 0);
+      PARSE_TIME.recordSince(parseStart);
+      MarketSnapshot live = new MarketSnapshot(prices, System.currentTimeMillis(), false);
+      this.snapshot.set(live);
+      response.markProcessed();
+      this.refreshPolicy.recordSuccess(true);
+      this.history.record(prices, live.timestamp());
+      completePendingLookups(live);
+      notifyListeners();
+      this.snapshotStore.save(live);
+    } catch (Exception e) {
+      Metrics.recordError("market.refresh", e);
+      this.refreshPolicy.recordFailure();
+      recordFailure(e);
+    } finally {
+      this.refreshing.set(false);
+    }
+  }
+
+  /**
+   * A 304 confirms the prices in memory, so the snapshot counts as fresh again from now on.
+   */
+  private void revalidate(MarketSnapshot previous) {
+    MarketSnapshot confirmed = new MarketSnapshot(previous.prices(), System.currentTimeMillis(),
+        false);
+    if (this.snapshot.compareAndSet(previous, confirmed) && previous.stale()) {
+      notifyListeners();
+    }
+  }
+
+  private void recordFailure(Exception cause) {
+    this.lastFailureAt = System.currentTimeMillis();
+    Iterator<Map.Entry<String, CompletableFuture<PriceQuote>>> iterator =
+        this.pendingLookups.entrySet().iterator();
+    while (iterator.hasNext()) {
+      CompletableFuture<PriceQuote> future = iterator.next().getValue();
+      iterator.remove();
+      future.completeExceptionally(cause);
+    }
+  }
+
+  /**
+   * Prices stay on screen while refreshes fail: after {@value #SOFT_TTL_MS} ms without a confirmed
+   * refresh the snapshot is marked stale, and only after the hard TTL it is dropped.
+   */
+  private void checkExpiry() {
+    MarketSnapshot current = this.snapshot.get();
+    if (current == null) {
+      return;
+    }
+    long age = System.currentTimeMillis() - current.timestamp();
+    if (age > HARD_TTL_MS) {
+      if (this.snapshot.compareAndSet(current, null)) {
+        notifyListeners();
+      }
+    } else if (!current.stale() && age > SOFT_TTL_MS) {
+      MarketSnapshot stale = new MarketSnapshot(current.prices(), current.timestamp(), true);
+      if (this.snapshot.compareAndSet(current, stale)) {
+        notifyListeners();
+      }
+    }
+  }
+
+  private void completePendingLookups(MarketSnapshot current) {
+    Iterator<Map.Entry<String, CompletableFuture<PriceQuote>>> iterator =
+        this.pendingLookups.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, CompletableFuture<PriceQuote>> entry = iterator.next();
+      iterator.remove();
+      entry.getValue().complete(PriceQuote.of(current.prices(), entry.getKey()));
+    }
+  }
+
+  private void notifyListeners() {
+    for (Runnable listener : this.updateListeners) {
+      try {
+        listener.run();
+      } catch (Throwable t) {
+        Metrics.recordError("market.listener", t);
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package net.craftportal.market;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams a {@code /market/prices} body ({@code {category: {ITEM: [{orderSide, price}]}}})
+ * straight into a {@link PriceIndex} without materializing a JSON tree.
+ */
+public final class MarketPricesParser {
+
+  private static final int DEFAULT_EXPECTED_ITEMS = 1024;
+
+  private MarketPricesParser() {
+  }
+
+  public static PriceIndex parse(InputStream body) throws IOException {
+    return parse(body, DEFAULT_EXPECTED_ITEMS);
+  }
+
+  public static PriceIndex parse(InputStream body, int expectedItems) throws IOException {
+    try (Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8)) {
+      return parse(reader, expectedItems);
+    }
+  }
+
+  public static PriceIndex parse(Reader body, int expectedItems) throws IOException {
+    JsonReader reader = new JsonReader(body);
+    PriceIndex.Builder builder = PriceIndex.builder(
+        expectedItems > 0 ? expectedItems : DEFAULT_EXPECTED_ITEMS);
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      reader.nextName();
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        continue;
+      }
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String itemId = reader.nextName();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+          reader.skipValue();
+          continue;
+        }
+        readOrders(reader, builder, itemId);
+      }
+      reader.endObject();
+    }
+    reader.endObject();
+
+    return builder.build();
+  }
+
+  private static void readOrders(JsonReader reader, PriceIndex.Builder builder, String itemId)
+      throws IOException {
+    double buyPrice = Double.NaN;
+    double sellPrice = Double.NaN;
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        continue;
+      }
+
+      String orderSide = null;
+      double price = Double.NaN;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String field = reader.nextName();
+        JsonToken token = reader.peek();
+        if ("orderSide".equals(field) && token == JsonToken.STRING) {
+          orderSide = reader.nextString();
+        } else if ("price".equals(field) && token == JsonToken.NUMBER) {
+          price = reader.nextDouble();
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if ("BUY".equals(orderSide)) {
+        buyPrice = price;
+      } else if ("SELL".equals(orderSide)) {
+        sellPrice = price;
+      }
+    }
+    reader.endArray();
+
+    builder.put(itemId, buyPrice, sellPrice);
+  }
+}
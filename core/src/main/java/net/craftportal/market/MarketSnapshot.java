@@ -0,0 +1,4 @@
+package net.craftportal.market;
+
+public record MarketSnapshot(PriceIndex prices, long timestamp, boolean stale) {
+}
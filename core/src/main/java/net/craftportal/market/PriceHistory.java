@@ -0,0 +1,312 @@
+package net.craftportal.market;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local price history built from the refreshes the addon makes anyway. Every item keeps its price
+ * changes in primitive ring buffers, one sample per {@value #FINE_SPACING_MINUTES} minutes for
+ * the last eight hours and one per hour for the last eight days. The buffers grow with the number
+ * of samples, so items whose price rarely moves stay small. A refresh only touches items whose
+ * price moved, and only those changes go to the {@link PriceHistoryStore}.
+ */
+public class PriceHistory {
+
+  private static final int FINE_SAMPLES = 96;
+  private static final int FINE_SPACING_MINUTES = 5;
+  private static final int COARSE_SAMPLES = 192;
+  private static final int COARSE_SPACING_MINUTES = 60;
+  private static final long MINUTE_MS = 60000L;
+  private static final int INITIAL_RING_CAPACITY = 4;
+
+  private final PriceHistoryStore store;
+  private final Map<String, Series> series = new ConcurrentHashMap<>();
+  private volatile long version;
+  private boolean loaded;
+  private boolean closed;
+
+  /**
+   * Relative change of the buy and sell price, e.g. {@code 0.05} for +5 %; {@code NaN} where the
+   * history has no earlier price to compare with.
+   */
+  public record Trend(double buyChange, double sellChange) {}
+
+  public PriceHistory(PriceHistoryStore store) {
+    this.store = store;
+  }
+
+  /**
+   * Rebuilds the in-memory history from disk, compacting it if needed. Blocks on file I/O, so
+   * run it on the scheduler; {@link #record} loads first if this has not run yet, and later
+   * calls do nothing.
+   */
+  public synchronized void load() {
+    if (this.loaded) {
+      return;
+    }
+    this.loaded = true;
+    this.store.replay(batch -> {
+      for (PriceHistoryStore.Entry entry : batch.entries()) {
+        seriesFor(entry.key()).append(batch.minute(), entry.buyPrice(), entry.sellPrice());
+      }
+    });
+    if (this.store.needsCompaction()) {
+      this.store.compact(batches());
+    }
+    this.version++;
+  }
+
+  /**
+   * Appends the prices of a fresh snapshot and persists the items that changed. Prices are kept
+   * in whole cents like on disk, so a replayed price does not count as changed on the next
+   * refresh.
+   */
+  public synchronized void record(PriceIndex prices, long timestamp) {
+    if (this.closed) {
+      return;
+    }
+    load();
+    int minute = (int) (timestamp / MINUTE_MS);
+    List<PriceHistoryStore.Entry> changed = new ArrayList<>();
+    for (int slot = 0; slot < prices.capacity(); slot++) {
+      String key = prices.keyAt(slot);
+      if (key == null) {
+        continue;
+      }
+      double buy = PriceHistoryStore.storedPrice(prices.buyPrice(slot));
+      double sell = PriceHistoryStore.storedPrice(prices.sellPrice(slot));
+      if (seriesFor(key).append(minute, buy, sell)) {
+        changed.add(new PriceHistoryStore.Entry(key, buy, sell));
+      }
+    }
+
+    this.store.append(new PriceHistoryStore.Batch(minute, changed));
+    if (this.store.needsCompaction()) {
+      this.store.compact(batches());
+    }
+    if (!changed.isEmpty()) {
+      this.version++;
+    }
+  }
+
+  /**
+   * Flushes and closes the current segment. Later refreshes are no longer recorded.
+   */
+  public synchronized void close() {
+    this.closed = true;
+    this.store.close();
+  }
+
+  /**
+   * Changes whenever recorded prices change, so callers can keep a computed {@link Trend} until
+   * either this or the minute they computed it for moves on.
+   */
+  public long version() {
+    return this.version;
+  }
+
+  /**
+   * Change from the last price at or before {@code now - windowMs} to the latest price. If the
+   * history does not reach back that far, the oldest recorded price is used; with a single
+   * recorded price there is no trend and {@code null} is returned.
+   */
+  public Trend trend(String itemId, long windowMs, long now) {
+    Series itemSeries = this.series.get(itemId.toUpperCase(Locale.ROOT));
+    if (itemSeries == null) {
+      return null;
+    }
+    return itemSeries.trend((int) ((now - windowMs) / MINUTE_MS));
+  }
+
+  private Series seriesFor(String key) {
+    return this.series.computeIfAbsent(key.toUpperCase(Locale.ROOT), ignored -> new Series());
+  }
+
+  /**
+   * The whole retained history, grouped by minute in ascending order, for compaction.
+   */
+  private List<PriceHistoryStore.Batch> batches() {
+    TreeMap<Integer, List<PriceHistoryStore.Entry>> byMinute = new TreeMap<>();
+    for (Map.Entry<String, Series> entry : this.series.entrySet()) {
+      entry.getValue().forEach((minute, buy, sell) -> byMinute
+          .computeIfAbsent(minute, ignored -> new ArrayList<>())
+          .add(new PriceHistoryStore.Entry(entry.getKey(), buy, sell)));
+    }
+    List<PriceHistoryStore.Batch> batches = new ArrayList<>(byMinute.size());
+    for (Map.Entry<Integer, List<PriceHistoryStore.Entry>> entry : byMinute.entrySet()) {
+      batches.add(new PriceHistoryStore.Batch(entry.getKey(), entry.getValue()));
+    }
+    return batches;
+  }
+
+  private interface SampleConsumer {
+    void accept(int minute, double buyPrice, double sellPrice);
+  }
+
+  /**
+   * One item's price changes in two rings: a fine one for the short trend windows and an hourly
+   * one reaching back over the longest window. Both always end in the latest price. The hourly
+   * ring is only created once the fine one is full; until then the fine ring holds every sample.
+   */
+  private static final class Series {
+
+    private final Ring fine = new Ring(FINE_SAMPLES, FINE_SPACING_MINUTES);
+    private Ring coarse;
+
+    /**
+     * Returns whether the sample was stored, i.e. the price differs from the latest sample.
+     */
+    synchronized boolean append(int minute, double buy, double sell) {
+      if (this.fine.size > 0) {
+        int last = this.fine.index(this.fine.size - 1);
+        if (samePrice(this.fine.buyPrices[last], buy)
+            && samePrice(this.fine.sellPrices[last], sell)) {
+          return false;
+        }
+      }
+      if (this.coarse == null && this.fine.isFull()) {
+        this.coarse = new Ring(COARSE_SAMPLES, COARSE_SPACING_MINUTES);
+        this.fine.forEachBefore(Integer.MAX_VALUE, this.coarse::append);
+      }
+      this.fine.append(minute, buy, sell);
+      if (this.coarse != null) {
+        this.coarse.append(minute, buy, sell);
+      }
+      return true;
+    }
+
+    synchronized Trend trend(int fromMinute) {
+      if (this.fine.size == 0) {
+        return null;
+      }
+      Ring ring = this.fine.minutes[this.fine.index(0)] <= fromMinute || this.coarse == null
+          || this.coarse.size < 2 ? this.fine : this.coarse;
+      if (ring.size < 2) {
+        return null;
+      }
+      int baseline = ring.index(0);
+      for (int i = ring.size - 1; i >= 0; i--) {
+        if (ring.minutes[ring.index(i)] <= fromMinute) {
+          baseline = ring.index(i);
+          break;
+        }
+      }
+      int latest = ring.index(ring.size - 1);
+      return new Trend(change(ring.buyPrices[baseline], ring.buyPrices[latest]),
+          change(ring.sellPrices[baseline], ring.sellPrices[latest]));
+    }
+
+    /**
+     * The retained samples oldest first: the hourly ones from before the fine ring starts, then
+     * the fine ones. Replaying them in this order rebuilds both rings.
+     */
+    synchronized void forEach(SampleConsumer consumer) {
+      int fineStart = this.fine.size > 0 ? this.fine.minutes[this.fine.index(0)]
+          : Integer.MAX_VALUE;
+      if (this.coarse != null) {
+        this.coarse.forEachBefore(fineStart, consumer);
+      }
+      this.fine.forEachBefore(Integer.MAX_VALUE, consumer);
+    }
+
+    private static boolean samePrice(double a, double b) {
+      return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    private static double change(double from, double to) {
+      if (Double.isNaN(from) || Double.isNaN(to) || from <= 0.0) {
+        return Double.NaN;
+      }
+      return (to - from) / from;
+    }
+  }
+
+  /**
+   * Ring of samples at least {@code spacing} minutes apart; a sample closer to the previous one
+   * replaces it. Starts small and doubles up to {@code maxCapacity}, then overwrites the oldest.
+   */
+  private static final class Ring {
+
+    private final int spacing;
+    private final int maxCapacity;
+    private int[] minutes;
+    private double[] buyPrices;
+    private double[] sellPrices;
+    private int head;
+    private int size;
+
+    Ring(int maxCapacity, int spacing) {
+      int capacity = Math.min(INITIAL_RING_CAPACITY, maxCapacity);
+      this.spacing = spacing;
+      this.maxCapacity = maxCapacity;
+      this.minutes = new int[capacity];
+      this.buyPrices = new double[capacity];
+      this.sellPrices = new double[capacity];
+    }
+
+    boolean isFull() {
+      return this.size == this.maxCapacity;
+    }
+
+    void append(int minute, double buy, double sell) {
+      int slot;
+      if (this.size > 0 && minute / this.spacing <= this.minutes[index(this.size - 1)]
+          / this.spacing) {
+        slot = index(this.size - 1);
+      } else {
+        if (this.size == this.minutes.length && this.size < this.maxCapacity) {
+          grow();
+        }
+        slot = this.head;
+        this.minutes[slot] = minute;
+        this.head = (this.head + 1) % this.minutes.length;
+        if (this.size < this.minutes.length) {
+          this.size++;
+        }
+      }
+      this.buyPrices[slot] = buy;
+      this.sellPrices[slot] = sell;
+    }
+
+    /**
+     * Doubles the buffers, moving the samples to the front in order.
+     */
+    private void grow() {
+      int capacity = Math.min(this.minutes.length * 2, this.maxCapacity);
+      int[] grownMinutes = new int[capacity];
+      double[] grownBuy = new double[capacity];
+      double[] grownSell = new double[capacity];
+      for (int i = 0; i < this.size; i++) {
+        int index = index(i);
+        grownMinutes[i] = this.minutes[index];
+        grownBuy[i] = this.buyPrices[index];
+        grownSell[i] = this.sellPrices[index];
+      }
+      this.minutes = grownMinutes;
+      this.buyPrices = grownBuy;
+      this.sellPrices = grownSell;
+      this.head = this.size;
+    }
+
+    void forEachBefore(int endMinute, SampleConsumer consumer) {
+      for (int i = 0; i < this.size; i++) {
+        int index = index(i);
+        if (this.minutes[index] >= endMinute) {
+          return;
+        }
+        consumer.accept(this.minutes[index], this.buyPrices[index], this.sellPrices[index]);
+      }
+    }
+
+    /**
+     * Buffer index of the {@code i}-th oldest sample.
+     */
+    int index(int i) {
+      return Math.floorMod(this.head - this.size + i, this.minutes.length);
+    }
+  }
+}
@@ -0,0 +1,366 @@
+package net.craftportal.market;
+
+import net.craftportal.metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Append-only price history on disk, split into segment files. Every session appends to its own
+ * segment; once there are more than {@value #MAX_SEGMENTS} segments or the current one grew past
+ * {@value #MAX_SEGMENT_BYTES} bytes, the caller rewrites the retained history into a single
+ * segment with {@link #compact(List)}.
+ *
+ * <p>Segment layout (big endian): magic and version, then batches. A batch is a marker byte, the
+ * minute as a varint delta to the previous batch, the entry count, and per entry a key reference
+ * (a new key is followed by its name), a presence flag byte and the buy and sell price in cents
+ * as zigzag varint deltas to the key's previous price in the same segment. Only changed prices
+ * are written, so a typical refresh costs a few bytes per moved item. A batch cut off by a crash
+ * is ignored on replay.
+ */
+public class PriceHistoryStore {
+
+  private static final int MAGIC = 0x4F505348;
+  private static final int VERSION = 1;
+  private static final int BATCH_MARKER = 0x42;
+  private static final int HAS_BUY = 1;
+  private static final int HAS_SELL = 2;
+  private static final int MAX_SEGMENTS = 8;
+  private static final long MAX_SEGMENT_BYTES = 2L * 1024 * 1024;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".bin";
+
+  private final Path directory;
+  private SegmentWriter writer;
+  private int segmentCount = -1;
+
+  /**
+   * One price sample. {@code NaN} stands for "no price on this side".
+   */
+  public record Entry(String key, double buyPrice, double sellPrice) {}
+
+  /**
+   * All entries recorded at one minute.
+   */
+  public record Batch(int minute, List<Entry> entries) {}
+
+  public interface BatchConsumer {
+    void accept(Batch batch);
+  }
+
+  public PriceHistoryStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Feeds every complete batch of every segment, oldest segment first, to {@code consumer}.
+   */
+  public synchronized void replay(BatchConsumer consumer) {
+    List<Path> segments = segments();
+    this.segmentCount = segments.size();
+    for (Path segment : segments) {
+      try (InputStream stream = Files.newInputStream(segment);
+          DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 16384))) {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+          continue;
+        }
+        SegmentReader reader = new SegmentReader(in);
+        Batch batch;
+        while ((batch = reader.next()) != null) {
+          consumer.accept(batch);
+        }
+      } catch (EOFException e) {
+      } catch (IOException e) {
+        Metrics.recordError("market.history", e);
+      }
+    }
+  }
+
+  public synchronized void append(Batch batch) {
+    if (batch.entries().isEmpty()) {
+      return;
+    }
+    try {
+      if (this.writer == null) {
+        int existing = segmentCount();
+        Files.createDirectories(this.directory);
+        Path segment = this.directory.resolve(segmentName(System.currentTimeMillis()));
+        this.writer = new SegmentWriter(Files.newOutputStream(segment,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE));
+        this.segmentCount = existing + 1;
+      }
+      this.writer.write(batch);
+      this.writer.flush();
+    } catch (IOException e) {
+      Metrics.recordError("market.history", e);
+      closeWriter();
+    }
+  }
+
+  public synchronized boolean needsCompaction() {
+    if (this.writer != null && this.writer.bytesWritten() > MAX_SEGMENT_BYTES) {
+      return true;
+    }
+    return segmentCount() > MAX_SEGMENTS;
+  }
+
+  /**
+   * Replaces all segments with one holding {@code batches}, which must be in minute order. Later
+   * appends start a new segment.
+   */
+  public synchronized void compact(List<Batch> batches) {
+    closeWriter();
+    List<Path> old = segments();
+    Path target = this.directory.resolve(segmentName(System.currentTimeMillis()));
+    Path temp = this.directory.resolve(target.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(this.directory);
+      try (SegmentWriter compacted = new SegmentWriter(Files.newOutputStream(temp))) {
+        for (Batch batch : batches) {
+          compacted.write(batch);
+        }
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      for (Path segment : old) {
+        if (!segment.equals(target)) {
+          Files.deleteIfExists(segment);
+        }
+      }
+      this.segmentCount = 1;
+    } catch (IOException e) {
+      Metrics.recordError("market.history", e);
+      this.segmentCount = -1;
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  public synchronized void close() {
+    closeWriter();
+  }
+
+  private void closeWriter() {
+    if (this.writer == null) {
+      return;
+    }
+    try {
+      this.writer.close();
+    } catch (IOException e) {
+    }
+    this.writer = null;
+  }
+
+  /**
+   * Number of segments on disk, listed once and then kept up to date by this store; {@code -1}
+   * in {@link #segmentCount} means it has to be listed again.
+   */
+  private int segmentCount() {
+    if (this.segmentCount < 0) {
+      this.segmentCount = segments().size();
+    }
+    return this.segmentCount;
+  }
+
+  private List<Path> segments() {
+    List<Path> segments = new ArrayList<>();
+    if (!Files.isDirectory(this.directory)) {
+      return segments;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory,
+        SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path segment : stream) {
+        segments.add(segment);
+      }
+    } catch (IOException e) {
+      Metrics.recordError("market.history", e);
+    }
+    segments.sort(null);
+    return segments;
+  }
+
+  private static String segmentName(long millis) {
+    return SEGMENT_PREFIX + String.format(Locale.ROOT, "%015d", millis) + SEGMENT_SUFFIX;
+  }
+
+  /**
+   * {@code price} at the precision the store keeps, whole cents, so prices held in memory compare
+   * equal to the same prices replayed from disk.
+   */
+  static double storedPrice(double price) {
+    return Double.isNaN(price) ? price : toCents(price) / 100.0;
+  }
+
+  private static long toCents(double price) {
+    return Math.round(price * 100.0);
+  }
+
+  private static final class SegmentWriter implements AutoCloseable {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> keys = new HashMap<>();
+    private long[] lastBuy = new long[64];
+    private long[] lastSell = new long[64];
+    private int lastMinute;
+
+    SegmentWriter(OutputStream stream) throws IOException {
+      this.out = new DataOutputStream(new BufferedOutputStream(stream, 16384));
+      this.out.writeInt(MAGIC);
+      this.out.writeInt(VERSION);
+    }
+
+    void write(Batch batch) throws IOException {
+      this.out.writeByte(BATCH_MARKER);
+      writeVarLong(this.out, zigzag(batch.minute() - (long) this.lastMinute));
+      this.lastMinute = batch.minute();
+      writeVarLong(this.out, batch.entries().size());
+
+      for (Entry entry : batch.entries()) {
+        Integer known = this.keys.get(entry.key());
+        int ref = known != null ? known : this.keys.size();
+        writeVarLong(this.out, ref);
+        if (known == null) {
+          this.keys.put(entry.key(), ref);
+          this.out.writeUTF(entry.key());
+          if (ref == this.lastBuy.length) {
+            this.lastBuy = Arrays.copyOf(this.lastBuy, ref * 2);
+            this.lastSell = Arrays.copyOf(this.lastSell, ref * 2);
+          }
+        }
+
+        boolean hasBuy = !Double.isNaN(entry.buyPrice());
+        boolean hasSell = !Double.isNaN(entry.sellPrice());
+        this.out.writeByte((hasBuy ? HAS_BUY : 0) | (hasSell ? HAS_SELL : 0));
+        if (hasBuy) {
+          long cents = toCents(entry.buyPrice());
+          writeVarLong(this.out, zigzag(cents - this.lastBuy[ref]));
+          this.lastBuy[ref] = cents;
+        }
+        if (hasSell) {
+          long cents = toCents(entry.sellPrice());
+          writeVarLong(this.out, zigzag(cents - this.lastSell[ref]));
+          this.lastSell[ref] = cents;
+        }
+      }
+    }
+
+    long bytesWritten() {
+      return this.out.size();
+    }
+
+    void flush() throws IOException {
+      this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.out.close();
+    }
+  }
+
+  private static final class SegmentReader {
+
+    private final DataInputStream in;
+    private final List<String> keys = new ArrayList<>();
+    private long[] lastBuy = new long[64];
+    private long[] lastSell = new long[64];
+    private int lastMinute;
+
+    SegmentReader(DataInputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * The next complete batch, or {@code null} at the end of the segment or at a damaged batch.
+     */
+    Batch next() throws IOException {
+      int marker = this.in.read();
+      if (marker != BATCH_MARKER) {
+        return null;
+      }
+      int minute = (int) (this.lastMinute + unzigzag(readVarLong(this.in)));
+      long count = readVarLong(this.in);
+      if (count < 0 || count > Integer.MAX_VALUE) {
+        return null;
+      }
+
+      List<Entry> entries = new ArrayList<>((int) Math.min(count, 1024));
+      for (long i = 0; i < count; i++) {
+        long ref = readVarLong(this.in);
+        if (ref == this.keys.size()) {
+          this.keys.add(this.in.readUTF());
+          if (ref == this.lastBuy.length) {
+            this.lastBuy = Arrays.copyOf(this.lastBuy, (int) ref * 2);
+            this.lastSell = Arrays.copyOf(this.lastSell, (int) ref * 2);
+          }
+        } else if (ref < 0 || ref > this.keys.size()) {
+          return null;
+        }
+        int key = (int) ref;
+
+        int flags = this.in.readUnsignedByte();
+        double buy = Double.NaN;
+        double sell = Double.NaN;
+        if ((flags & HAS_BUY) != 0) {
+          this.lastBuy[key] += unzigzag(readVarLong(this.in));
+          buy = this.lastBuy[key] / 100.0;
+        }
+        if ((flags & HAS_SELL) != 0) {
+          this.lastSell[key] += unzigzag(readVarLong(this.in));
+          sell = this.lastSell[key] / 100.0;
+        }
+        entries.add(new Entry(this.keys.get(key), buy, sell));
+      }
+      this.lastMinute = minute;
+      return new Batch(minute, entries);
+    }
+  }
+
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
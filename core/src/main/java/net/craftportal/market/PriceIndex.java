@@ -0,0 +1,164 @@
+package net.craftportal.market;
+
+import java.util.Arrays;
+
+/**
+ * Immutable open-addressing table from item id to primitive buy/sell prices. Keys are matched
+ * case-insensitively, so a lowercase item path can be looked up without building an uppercase
+ * copy first. Missing prices are stored as {@link Double#NaN}.
+ */
+public final class PriceIndex {
+
+  public static final PriceIndex EMPTY = new Builder(0).build();
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final String[] keys;
+  private final double[] buyPrices;
+  private final double[] sellPrices;
+  private final int mask;
+  private final int size;
+
+  private PriceIndex(String[] keys, double[] buyPrices, double[] sellPrices, int size) {
+    this.keys = keys;
+    this.buyPrices = buyPrices;
+    this.sellPrices = sellPrices;
+    this.mask = keys.length - 1;
+    this.size = size;
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int indexOf(String itemId) {
+    if (itemId == null || this.size == 0) {
+      return -1;
+    }
+    int slot = hash(itemId) & this.mask;
+    while (true) {
+      String key = this.keys[slot];
+      if (key == null) {
+        return -1;
+      }
+      if (key == itemId || key.equalsIgnoreCase(itemId)) {
+        return slot;
+      }
+      slot = (slot + 1) & this.mask;
+    }
+  }
+
+  public int capacity() {
+    return this.keys.length;
+  }
+
+  public String keyAt(int slot) {
+    return this.keys[slot];
+  }
+
+  public double buyPrice(int slot) {
+    return this.buyPrices[slot];
+  }
+
+  public double sellPrice(int slot) {
+    return this.sellPrices[slot];
+  }
+
+  public double buyPrice(String itemId) {
+    int slot = indexOf(itemId);
+    return slot < 0 ? Double.NaN : this.buyPrices[slot];
+  }
+
+  public double sellPrice(String itemId) {
+    int slot = indexOf(itemId);
+    return slot < 0 ? Double.NaN : this.sellPrices[slot];
+  }
+
+  private static int hash(String key) {
+    int h = 0;
+    for (int i = 0, length = key.length(); i < length; i++) {
+      char c = key.charAt(i);
+      if (c >= 'a' && c <= 'z') {
+        c -= 32;
+      }
+      h = 31 * h + c;
+    }
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static int capacityFor(int expectedSize) {
+    int capacity = 16;
+    while (capacity < expectedSize * 2L && capacity < MAX_CAPACITY) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  public static final class Builder {
+
+    private String[] keys;
+    private double[] buyPrices;
+    private double[] sellPrices;
+    private int size;
+
+    private Builder(int expectedSize) {
+      allocate(capacityFor(expectedSize));
+    }
+
+    public Builder put(String itemId, double buyPrice, double sellPrice) {
+      if (itemId == null || (Double.isNaN(buyPrice) && Double.isNaN(sellPrice))) {
+        return this;
+      }
+      if ((this.size + 1) * 2 > this.keys.length) {
+        rehash(this.keys.length << 1);
+      }
+      insert(itemId, buyPrice, sellPrice);
+      return this;
+    }
+
+    public PriceIndex build() {
+      return new PriceIndex(this.keys, this.buyPrices, this.sellPrices, this.size);
+    }
+
+    private void insert(String itemId, double buyPrice, double sellPrice) {
+      int mask = this.keys.length - 1;
+      int slot = hash(itemId) & mask;
+      while (this.keys[slot] != null) {
+        if (this.keys[slot].equalsIgnoreCase(itemId)) {
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      this.keys[slot] = itemId.intern();
+      this.buyPrices[slot] = buyPrice;
+      this.sellPrices[slot] = sellPrice;
+      this.size++;
+    }
+
+    private void rehash(int capacity) {
+      String[] oldKeys = this.keys;
+      double[] oldBuy = this.buyPrices;
+      double[] oldSell = this.sellPrices;
+      allocate(capacity);
+      this.size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          insert(oldKeys[i], oldBuy[i], oldSell[i]);
+        }
+      }
+    }
+
+    private void allocate(int capacity) {
+      this.keys = new String[capacity];
+      this.buyPrices = new double[capacity];
+      this.sellPrices = new double[capacity];
+      Arrays.fill(this.buyPrices, Double.NaN);
+      Arrays.fill(this.sellPrices, Double.NaN);
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package net.craftportal.market;
+
+public record PriceQuote(String itemId, boolean found, double buyPrice, double sellPrice) {
+
+  public static PriceQuote of(PriceIndex prices, String itemId) {
+    int slot = prices.indexOf(itemId);
+    if (slot < 0) {
+      return new PriceQuote(itemId, false, Double.NaN, Double.NaN);
+    }
+    return new PriceQuote(itemId, true, prices.buyPrice(slot), prices.sellPrice(slot));
+  }
+}
@@ -0,0 +1,103 @@
+package net.craftportal.market;
+
+import net.craftportal.metrics.Metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the last good price snapshot on disk so widgets have values right after login.
+ *
+ * <p>Layout (big endian): magic, version, timestamp, entry count, then per entry the item id as
+ * length-prefixed ASCII followed by the buy and sell price as doubles (NaN for no price).
+ */
+public class PriceSnapshotStore {
+
+  private static final int MAGIC = 0x4F50534D;
+  private static final int VERSION = 1;
+  private static final int MIN_ENTRY_BYTES = 2 + 8 + 8;
+
+  private final Path file;
+
+  public PriceSnapshotStore(Path file) {
+    this.file = file;
+  }
+
+  public MarketSnapshot load() {
+    if (!Files.isRegularFile(this.file)) {
+      return null;
+    }
+
+    // Read onto the heap rather than mapping the file: a live mapping keeps the file locked on
+    // Windows, and save() could then never replace it.
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.file));
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+
+      long timestamp = buffer.getLong();
+      int count = buffer.getInt();
+      if (count < 0 || count > buffer.remaining() / MIN_ENTRY_BYTES) {
+        return null;
+      }
+
+      PriceIndex.Builder builder = PriceIndex.builder(count);
+      byte[] keyBuffer = new byte[64];
+      for (int i = 0; i < count; i++) {
+        int keyLength = buffer.getShort() & 0xFFFF;
+        if (keyBuffer.length < keyLength) {
+          keyBuffer = new byte[keyLength];
+        }
+        buffer.get(keyBuffer, 0, keyLength);
+        builder.put(new String(keyBuffer, 0, keyLength, StandardCharsets.US_ASCII),
+            buffer.getDouble(), buffer.getDouble());
+      }
+      return new MarketSnapshot(builder.build(), timestamp, true);
+    } catch (IOException | BufferUnderflowException e) {
+      return null;
+    }
+  }
+
+  public void save(MarketSnapshot snapshot) {
+    PriceIndex prices = snapshot.prices();
+    Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(this.file.getParent());
+      try (OutputStream stream = Files.newOutputStream(temp);
+          DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 16384))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(snapshot.timestamp());
+        out.writeInt(prices.size());
+        for (int slot = 0; slot < prices.capacity(); slot++) {
+          String key = prices.keyAt(slot);
+          if (key == null) {
+            continue;
+          }
+          byte[] keyBytes = key.getBytes(StandardCharsets.US_ASCII);
+          out.writeShort(keyBytes.length);
+          out.write(keyBytes);
+          out.writeDouble(prices.buyPrice(slot));
+          out.writeDouble(prices.sellPrice(slot));
+        }
+      }
+      Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Metrics.recordError("market.snapshotStore", e);
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignored) {
+      }
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package net.craftportal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter. Increments go to a {@link LongAdder}, so concurrent fetcher threads and
+ * the render thread never contend on a single cache line.
+ */
+public final class Counter {
+
+  private final LongAdder count = new LongAdder();
+
+  Counter() {
+  }
+
+  public void increment() {
+    this.count.increment();
+  }
+
+  public void add(long amount) {
+    this.count.add(amount);
+  }
+
+  public long sum() {
+    return this.count.sum();
+  }
+}
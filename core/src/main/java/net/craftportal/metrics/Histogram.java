@@ -0,0 +1,175 @@
+package net.craftportal.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram. Each power of two is split into {@value #SUB_BUCKETS} linear
+ * buckets, so a recorded value lands in a bucket at most 12.5 % wider than itself; values below
+ * {@value #SUB_BUCKETS} are exact. Recording is one bucket increment plus two adder updates, cheap
+ * enough to wrap every widget tick.
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+  private final Unit unit;
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * How recorded values are printed.
+   */
+  public enum Unit {
+    NANOS,
+    BYTES,
+    COUNT
+  }
+
+  Histogram(Unit unit) {
+    this.unit = unit;
+  }
+
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    this.buckets.incrementAndGet(bucketOf(value));
+    this.count.increment();
+    this.sum.add(value);
+    if (value > this.max.get()) {
+      this.max.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * Records the nanoseconds elapsed since {@code startNanos} (a {@link System#nanoTime()} value).
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  public Unit unit() {
+    return this.unit;
+  }
+
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = this.buckets.get(i);
+    }
+    return new Snapshot(this.unit, counts, this.count.sum(), this.sum.sum(), this.max.get());
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) ((value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+    return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket + 1 >= BUCKETS) {
+      return Long.MAX_VALUE;
+    }
+    return lowerBoundOf(bucket + 1) - 1;
+  }
+
+  private static long lowerBoundOf(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    int sub = bucket % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+  }
+
+  /**
+   * Point-in-time copy of a histogram. Taken without stopping writers, so the totals may be a few
+   * samples apart from the bucket counts.
+   */
+  public static final class Snapshot {
+
+    private final Unit unit;
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    Snapshot(Unit unit, long[] counts, long count, long sum, long max) {
+      this.unit = unit;
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long count() {
+      return this.count;
+    }
+
+    public long max() {
+      return this.max;
+    }
+
+    public long mean() {
+      return this.count == 0 ? 0 : this.sum / this.count;
+    }
+
+    /**
+     * The upper bound of the bucket holding the given quantile, capped at the recorded maximum.
+     */
+    public long percentile(double quantile) {
+      long total = 0;
+      for (long bucketCount : this.counts) {
+        total += bucketCount;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(quantile * total);
+      long seen = 0;
+      for (int i = 0; i < this.counts.length; i++) {
+        seen += this.counts[i];
+        if (seen >= rank && this.counts[i] > 0) {
+          return Math.min(upperBoundOf(i), this.max);
+        }
+      }
+      return this.max;
+    }
+
+    public String format(long value) {
+      switch (this.unit) {
+        case NANOS:
+          if (value >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fms", value / 1_000_000.0);
+          }
+          return (value / 1000L) + "µs";
+        case BYTES:
+          if (value >= 1024L) {
+            return String.format(Locale.ROOT, "%.1fKB", value / 1024.0);
+          }
+          return value + "B";
+        default:
+          return Long.toString(value);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "n=" + this.count
+          + " mean=" + format(mean())
+          + " p50=" + format(percentile(0.5))
+          + " p99=" + format(percentile(0.99))
+          + " max=" + format(this.max);
+    }
+  }
+}
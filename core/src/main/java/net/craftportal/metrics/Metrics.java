@@ -0,0 +1,144 @@
+package net.craftportal.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide registry of the addon's counters, histograms and gauges. Metrics are looked up by
+ * dotted name once, usually into a field, and then updated without any locking; only the debug
+ * widget and the dump read the registry itself.
+ *
+ * <p>Names used by the addon: {@code http.<client>.*} for requests, latency, bytes and failures
+ * per API client, {@code parse.<payload>} for body parsing, {@code tick.<widget>} for time spent
+ * in {@code onTick}, {@code cache.<name>.*} for cache statistics and {@code <source>.errors} for
+ * exceptions that are otherwise swallowed.
+ */
+public final class Metrics {
+
+  private static final int MAX_ERROR_MESSAGE_LENGTH = 120;
+
+  private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+  private static final Map<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+  private static final Map<String, LastError> LAST_ERRORS = new ConcurrentHashMap<>();
+
+  /**
+   * The most recent exception reported by one source.
+   */
+  public record LastError(String source, long timestamp, String message) {}
+
+  private Metrics() {
+  }
+
+  public static Counter counter(String name) {
+    return COUNTERS.computeIfAbsent(name, key -> new Counter());
+  }
+
+  public static Histogram histogram(String name, Histogram.Unit unit) {
+    return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram(unit));
+  }
+
+  /**
+   * Registers a value that is read only when metrics are shown or dumped. A later registration
+   * under the same name replaces the earlier one.
+   */
+  public static void gauge(String name, LongSupplier value) {
+    GAUGES.put(name, value);
+  }
+
+  /**
+   * Counts a swallowed exception under {@code <source>.errors} and remembers it as the source's
+   * last error.
+   */
+  public static void recordError(String source, Throwable error) {
+    counter(source + ".errors").increment();
+    String message = error.getClass().getSimpleName();
+    if (error.getMessage() != null) {
+      message += ": " + error.getMessage();
+    }
+    if (message.length() > MAX_ERROR_MESSAGE_LENGTH) {
+      message = message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+    LAST_ERRORS.put(source, new LastError(source, System.currentTimeMillis(), message));
+  }
+
+  public static LastError lastError() {
+    LastError latest = null;
+    for (LastError error : LAST_ERRORS.values()) {
+      if (latest == null || error.timestamp() > latest.timestamp()) {
+        latest = error;
+      }
+    }
+    return latest;
+  }
+
+  /**
+   * Sum of all counters named {@code <prefix><anything><suffix>}.
+   */
+  public static long sumCounters(String prefix, String suffix) {
+    long sum = 0;
+    for (Map.Entry<String, Counter> entry : COUNTERS.entrySet()) {
+      if (entry.getKey().startsWith(prefix) && entry.getKey().endsWith(suffix)) {
+        sum += entry.getValue().sum();
+      }
+    }
+    return sum;
+  }
+
+  public static long gaugeValue(String name) {
+    LongSupplier gauge = GAUGES.get(name);
+    if (gauge == null) {
+      return 0;
+    }
+    try {
+      return gauge.getAsLong();
+    } catch (RuntimeException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Snapshots of all histograms whose name starts with {@code prefix}, keyed by the rest of the
+   * name and ordered by it.
+   */
+  public static Map<String, Histogram.Snapshot> histograms(String prefix) {
+    Map<String, Histogram.Snapshot> result = new TreeMap<>();
+    for (Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        result.put(entry.getKey().substring(prefix.length()), entry.getValue().snapshot());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Every metric as one {@code name value} line, sorted by name.
+   */
+  public static List<String> report() {
+    Map<String, String> lines = new TreeMap<>();
+    for (Map.Entry<String, Counter> entry : COUNTERS.entrySet()) {
+      lines.put(entry.getKey(), Long.toString(entry.getValue().sum()));
+    }
+    for (Map.Entry<String, LongSupplier> entry : GAUGES.entrySet()) {
+      lines.put(entry.getKey(), Long.toString(gaugeValue(entry.getKey())));
+    }
+    for (Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet()) {
+      lines.put(entry.getKey(), entry.getValue().snapshot().toString());
+    }
+    for (LastError error : LAST_ERRORS.values()) {
+      lines.put(error.source() + ".lastError",
+          Instant.ofEpochMilli(error.timestamp()) + " " + error.message());
+    }
+
+    List<String> report = new ArrayList<>(lines.size());
+    for (Map.Entry<String, String> line : lines.entrySet()) {
+      report.add(line.getKey() + " " + line.getValue());
+    }
+    return report;
+  }
+}
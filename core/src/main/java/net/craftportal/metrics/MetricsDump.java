@@ -0,0 +1,42 @@
+package net.craftportal.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes {@link Metrics#report()} and the tick time series to a text file, replacing the previous
+ * dump atomically so the file can be tailed or copied while the game runs.
+ */
+public class MetricsDump {
+
+  private final Path file;
+
+  public MetricsDump(Path file) {
+    this.file = file;
+  }
+
+  public void write() {
+    List<String> report = Metrics.report();
+    List<String> lines = new ArrayList<>(report.size() + 8);
+    lines.add("# OPSucht Markt metrics " + Instant.now());
+    lines.addAll(report);
+    lines.add("# worst tick per second in µs, oldest first, * = over budget");
+    lines.addAll(TickBudget.seriesReport());
+
+    Path temp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(this.file.getParent());
+      Files.write(temp, lines, StandardCharsets.UTF_8);
+      Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Metrics.recordError("metrics.dump", e);
+    }
+  }
+}
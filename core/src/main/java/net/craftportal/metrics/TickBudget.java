@@ -0,0 +1,175 @@
+package net.craftportal.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the time one widget spends in {@code onTick} against a shared budget. A tick over the
+ * budget makes the widget skip its optional work (config polling, rescans, cosmetic re-renders)
+ * for as many following ticks as the overrun was long, but never for more than
+ * {@value #MAX_DEFERRED_TICKS} ticks in a row.
+ *
+ * <p>Besides the {@code tick.<widget>} histogram, every budget keeps the worst tick of each of the
+ * last {@value #SERIES_SECONDS} seconds, so the dump can show which widget caused a spike and
+ * when. {@link #begin()} and {@link #end(long)} must be called on the render thread.
+ */
+public final class TickBudget {
+
+  private static final int MAX_DEFERRED_TICKS = 20;
+  private static final int SERIES_SECONDS = 120;
+  private static final Map<String, TickBudget> BUDGETS = new ConcurrentHashMap<>();
+
+  private static volatile long budgetNanos = 500_000L;
+
+  private final String widget;
+  private final Histogram tickTime;
+  private final Counter overBudget;
+  private final Counter deferred;
+
+  private final AtomicLongArray seriesSecond = new AtomicLongArray(SERIES_SECONDS);
+  private final AtomicLongArray seriesMax = new AtomicLongArray(SERIES_SECONDS);
+  private final AtomicLongArray seriesOverBudget = new AtomicLongArray(SERIES_SECONDS);
+
+  private int deferTicks;
+  private int ticksSinceOptionalWork;
+  private boolean optionalWorkAllowed = true;
+
+  private TickBudget(String widget) {
+    this.widget = widget;
+    this.tickTime = Metrics.histogram("tick." + widget, Histogram.Unit.NANOS);
+    this.overBudget = Metrics.counter("tick." + widget + ".overBudget");
+    this.deferred = Metrics.counter("tick." + widget + ".deferred");
+  }
+
+  public static TickBudget of(String widget) {
+    return BUDGETS.computeIfAbsent(widget, TickBudget::new);
+  }
+
+  public static void setBudgetNanos(long nanos) {
+    budgetNanos = Math.max(1L, nanos);
+  }
+
+  /**
+   * Starts a tick and decides whether this tick may do optional work.
+   *
+   * @return the start time to pass to {@link #end(long)}
+   */
+  public long begin() {
+    this.optionalWorkAllowed = this.deferTicks == 0
+        || this.ticksSinceOptionalWork >= MAX_DEFERRED_TICKS;
+    if (this.optionalWorkAllowed) {
+      this.ticksSinceOptionalWork = 0;
+    } else {
+      this.ticksSinceOptionalWork++;
+      this.deferred.increment();
+    }
+    return System.nanoTime();
+  }
+
+  public void end(long startNanos) {
+    long elapsed = System.nanoTime() - startNanos;
+    this.tickTime.record(elapsed);
+
+    long budget = budgetNanos;
+    boolean over = elapsed > budget;
+    if (over) {
+      this.overBudget.increment();
+      this.deferTicks = (int) Math.min(MAX_DEFERRED_TICKS, Math.max(1L, elapsed / budget));
+    } else if (this.deferTicks > 0) {
+      this.deferTicks--;
+    }
+    recordSeries(System.currentTimeMillis() / 1000L, elapsed, over);
+  }
+
+  /**
+   * Whether the current tick may do work that can wait without the widget showing wrong data.
+   */
+  public boolean optionalWorkAllowed() {
+    return this.optionalWorkAllowed;
+  }
+
+  private void recordSeries(long second, long elapsed, boolean over) {
+    int slot = (int) (second % SERIES_SECONDS);
+    if (this.seriesSecond.get(slot) != second) {
+      this.seriesMax.set(slot, 0L);
+      this.seriesOverBudget.set(slot, 0L);
+      this.seriesSecond.set(slot, second);
+    }
+    if (elapsed > this.seriesMax.get(slot)) {
+      this.seriesMax.set(slot, elapsed);
+    }
+    if (over) {
+      this.seriesOverBudget.incrementAndGet(slot);
+    }
+  }
+
+  /**
+   * The worst tick within the last {@code seconds} seconds, in nanoseconds.
+   */
+  public long worstTick(int seconds) {
+    long now = System.currentTimeMillis() / 1000L;
+    long worst = 0L;
+    for (int slot = 0; slot < SERIES_SECONDS; slot++) {
+      if (now - this.seriesSecond.get(slot) < seconds) {
+        worst = Math.max(worst, this.seriesMax.get(slot));
+      }
+    }
+    return worst;
+  }
+
+  public long overBudgetTicks(int seconds) {
+    long now = System.currentTimeMillis() / 1000L;
+    long count = 0L;
+    for (int slot = 0; slot < SERIES_SECONDS; slot++) {
+      if (now - this.seriesSecond.get(slot) < seconds) {
+        count += this.seriesOverBudget.get(slot);
+      }
+    }
+    return count;
+  }
+
+  public String widget() {
+    return this.widget;
+  }
+
+  /**
+   * Budgets ordered by their worst tick within the last {@code seconds} seconds, worst first.
+   */
+  public static List<TickBudget> worstOffenders(int seconds) {
+    List<TickBudget> budgets = new ArrayList<>(BUDGETS.values());
+    budgets.sort(Comparator.comparingLong((TickBudget budget) -> budget.worstTick(seconds))
+        .reversed());
+    return budgets;
+  }
+
+  /**
+   * One line per widget, worst first: the per-second worst tick in microseconds, oldest second
+   * first, with {@code -} for seconds without a tick and {@code *} marking seconds over budget.
+   */
+  public static List<String> seriesReport() {
+    long now = System.currentTimeMillis() / 1000L;
+    List<String> lines = new ArrayList<>();
+    for (TickBudget budget : worstOffenders(SERIES_SECONDS)) {
+      StringBuilder line = new StringBuilder("tick.").append(budget.widget)
+          .append(".series budget=").append(budgetNanos / 1000L).append("µs");
+      for (long second = now - SERIES_SECONDS + 1; second <= now; second++) {
+        int slot = (int) (second % SERIES_SECONDS);
+        line.append(second == now - SERIES_SECONDS + 1 ? " " : ",");
+        if (budget.seriesSecond.get(slot) != second) {
+          line.append('-');
+          continue;
+        }
+        line.append(budget.seriesMax.get(slot) / 1000L);
+        if (budget.seriesOverBudget.get(slot) > 0) {
+          line.append('*');
+        }
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,260 @@
+package net.craftportal.scheduler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The only executor of the addon. One daemon timer thread fires the periodic tasks and hands them
+ * to virtual threads, so blocking HTTP calls never hold up the timer. Periodic tasks can be
+ * registered at any time; they run while the scheduler is started and are re-armed on the next
+ * {@link #start()}. Polling tasks are re-armed after every run with the delay their
+ * {@link PollingPolicy} asks for, stretched or suspended by the {@link ConnectionState}.
+ */
+public class AddonScheduler {
+
+  private static final long BACKGROUND_INTERVAL_MS = 300000;
+
+  private final List<PeriodicTask> periodicTasks = new CopyOnWriteArrayList<>();
+  private final Object lifecycleLock = new Object();
+
+  private volatile ScheduledExecutorService timer;
+  private volatile ExecutorService workers;
+  private volatile int generation;
+  private volatile ConnectionState connectionState = ConnectionState.STOPPED;
+
+  public void start() {
+    synchronized (lifecycleLock) {
+      if (this.timer != null) {
+        return;
+      }
+      this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "OPSuchtMarkt-Scheduler");
+        t.setDaemon(true);
+        return t;
+      });
+      this.workers = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("OPSuchtMarkt-Worker-", 0).factory());
+      this.generation++;
+
+      for (PeriodicTask task : this.periodicTasks) {
+        task.schedule(this.timer);
+      }
+    }
+  }
+
+  public void stop() {
+    synchronized (lifecycleLock) {
+      if (this.timer == null) {
+        return;
+      }
+      this.timer.shutdownNow();
+      this.workers.shutdownNow();
+      this.timer = null;
+      this.workers = null;
+    }
+  }
+
+  public boolean isRunning() {
+    return this.workers != null;
+  }
+
+  public ConnectionState connectionState() {
+    return this.connectionState;
+  }
+
+  /**
+   * Polling tasks run at their own pace while {@link ConnectionState#ACTIVE}, at most every
+   * {@value #BACKGROUND_INTERVAL_MS} ms while {@link ConnectionState#BACKGROUND}, and go dormant
+   * while {@link ConnectionState#STOPPED}. Leaving {@code STOPPED} fires every polling task at
+   * once, so data is fresh right after joining; returning from the background cuts the pending
+   * heartbeat short and re-arms with the normal interval. Called every tick, so an unchanged
+   * state returns without taking the lock.
+   */
+  public void setConnectionState(ConnectionState state) {
+    if (this.connectionState == state) {
+      return;
+    }
+    synchronized (lifecycleLock) {
+      ConnectionState previous = this.connectionState;
+      if (previous == state) {
+        return;
+      }
+      this.connectionState = state;
+      if (this.timer == null || state == ConnectionState.STOPPED
+          || (previous == ConnectionState.ACTIVE && state == ConnectionState.BACKGROUND)) {
+        return;
+      }
+      this.generation++;
+      for (PeriodicTask task : this.periodicTasks) {
+        task.rearmPolling(this.timer, previous == ConnectionState.STOPPED);
+      }
+    }
+  }
+
+  public void scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+    register(new PeriodicTask(task, unit.toMillis(initialDelay), unit.toMillis(period), null));
+  }
+
+  public void schedulePolling(Runnable task, PollingPolicy policy) {
+    register(new PeriodicTask(task, 0L, 0L, policy));
+  }
+
+  private void register(PeriodicTask periodicTask) {
+    synchronized (lifecycleLock) {
+      this.periodicTasks.add(periodicTask);
+      if (this.timer != null) {
+        periodicTask.schedule(this.timer);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code task} on a worker after {@code delay}. Returns {@code false} and drops the task
+   * if the scheduler is not running.
+   */
+  public boolean schedule(Runnable task, long delay, TimeUnit unit) {
+    synchronized (lifecycleLock) {
+      if (this.timer == null) {
+        return false;
+      }
+      try {
+        this.timer.schedule(() -> execute(task), delay, unit);
+      } catch (RejectedExecutionException e) {
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Like {@link #schedule(Runnable, long, TimeUnit)}, but also drops the task and returns
+   * {@code false} while {@link ConnectionState#STOPPED}.
+   */
+  public boolean scheduleIfConnected(Runnable task, long delay, TimeUnit unit) {
+    if (this.connectionState == ConnectionState.STOPPED) {
+      return false;
+    }
+    return schedule(task, delay, unit);
+  }
+
+  public void execute(Runnable task) {
+    ExecutorService current = this.workers;
+    if (current == null) {
+      return;
+    }
+    try {
+      current.execute(task);
+    } catch (RejectedExecutionException e) {
+    }
+  }
+
+  /**
+   * Like {@link #execute(Runnable)}, but drops the task while {@link ConnectionState#STOPPED}.
+   * Meant for on-demand loads of data a polling task also fetches: leaving {@code STOPPED} fires
+   * every polling task at once, which catches up on whatever was dropped.
+   */
+  public void executeIfConnected(Runnable task) {
+    if (this.connectionState == ConnectionState.STOPPED) {
+      return;
+    }
+    execute(task);
+  }
+
+  private final class PeriodicTask {
+
+    private final Runnable task;
+    private final long initialDelayMs;
+    private final long periodMs;
+    private final PollingPolicy policy;
+    private final AtomicBoolean inFlight = new AtomicBoolean(false);
+
+    private PeriodicTask(Runnable task, long initialDelayMs, long periodMs, PollingPolicy policy) {
+      this.task = task;
+      this.initialDelayMs = initialDelayMs;
+      this.periodMs = periodMs;
+      this.policy = policy;
+    }
+
+    private void schedule(ScheduledExecutorService timer) {
+      if (this.policy == null) {
+        timer.scheduleAtFixedRate(this::fire, this.initialDelayMs, this.periodMs,
+            TimeUnit.MILLISECONDS);
+      } else {
+        int armedGeneration = generation;
+        timer.schedule(() -> fire(armedGeneration), this.initialDelayMs, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    /**
+     * Replaces the pending run of a polling task after a connection state change.
+     */
+    private void rearmPolling(ScheduledExecutorService timer, boolean immediately) {
+      if (this.policy == null) {
+        return;
+      }
+      int armedGeneration = generation;
+      long delay = immediately ? 0L : this.policy.nextDelayMillis();
+      timer.schedule(() -> fire(armedGeneration), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire() {
+      fire(generation);
+    }
+
+    private void fire(int armedGeneration) {
+      if (this.policy != null && (armedGeneration != generation
+          || connectionState == ConnectionState.STOPPED)) {
+        return;
+      }
+      if (!this.inFlight.compareAndSet(false, true)) {
+        rearm(armedGeneration);
+        return;
+      }
+      ExecutorService current = workers;
+      if (current == null) {
+        this.inFlight.set(false);
+        return;
+      }
+      try {
+        current.execute(() -> {
+          try {
+            this.task.run();
+          } catch (Throwable t) {
+          } finally {
+            this.inFlight.set(false);
+            rearm(armedGeneration);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        this.inFlight.set(false);
+      }
+    }
+
+    private void rearm(int armedGeneration) {
+      if (this.policy == null) {
+        return;
+      }
+      synchronized (lifecycleLock) {
+        ScheduledExecutorService current = timer;
+        if (current == null || generation != armedGeneration
+            || connectionState == ConnectionState.STOPPED) {
+          return;
+        }
+        long delay = this.policy.nextDelayMillis();
+        if (connectionState == ConnectionState.BACKGROUND) {
+          delay = Math.max(delay, BACKGROUND_INTERVAL_MS);
+        }
+        try {
+          current.schedule(() -> fire(armedGeneration), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package net.craftportal.scheduler;
+
+/**
+ * How much background polling the current game state is worth, see
+ * {@link AddonScheduler#setConnectionState(ConnectionState)}.
+ */
+public enum ConnectionState {
+  /**
+   * On OPSucht with the game window focused: polling loops run at their own pace.
+   */
+  ACTIVE,
+  /**
+   * On OPSucht, but the window is in the background or the game is paused: polling loops slow
+   * down to a heartbeat.
+   */
+  BACKGROUND,
+  /**
+   * In the menu or on another server: polling loops do not run at all.
+   */
+  STOPPED
+}
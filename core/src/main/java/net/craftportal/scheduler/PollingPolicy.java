@@ -0,0 +1,112 @@
+package net.craftportal.scheduler;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a polling loop runs next. Successful polls keep the base interval, and the interval
+ * doubles after every {@value #UNCHANGED_STEP} unchanged responses up to a ceiling. Failures back
+ * off exponentially with jitter, and after {@value #FAILURE_THRESHOLD} consecutive failures the
+ * circuit opens: no request is allowed until a single probe may try again. Every delay is
+ * jittered so clients that started together drift apart instead of polling in lockstep.
+ */
+public final class PollingPolicy {
+
+  private static final int FAILURE_THRESHOLD = 5;
+  private static final int UNCHANGED_STEP = 4;
+  private static final double INTERVAL_JITTER = 0.1;
+
+  private enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final long baseIntervalMs;
+  private final long maxIdleIntervalMs;
+  private final long maxBackoffMs;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures;
+  private int unchangedStreak;
+  private long openUntil;
+  private long retryNotBefore;
+
+  public PollingPolicy(long baseIntervalMs, long maxIdleIntervalMs, long maxBackoffMs) {
+    this.baseIntervalMs = baseIntervalMs;
+    this.maxIdleIntervalMs = Math.max(baseIntervalMs, maxIdleIntervalMs);
+    this.maxBackoffMs = Math.max(baseIntervalMs, maxBackoffMs);
+  }
+
+  /**
+   * Returns whether a request may go out now. While the circuit is open this is {@code false};
+   * once the open period is over exactly one caller is let through as a probe.
+   */
+  public synchronized boolean tryAcquire() {
+    long now = System.currentTimeMillis();
+    if (now < this.retryNotBefore) {
+      return false;
+    }
+    switch (this.state) {
+      case OPEN:
+        if (now < this.openUntil) {
+          return false;
+        }
+        this.state = State.HALF_OPEN;
+        return true;
+      case HALF_OPEN:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  public synchronized void recordSuccess(boolean changed) {
+    this.state = State.CLOSED;
+    this.consecutiveFailures = 0;
+    this.unchangedStreak = changed ? 0 : this.unchangedStreak + 1;
+  }
+
+  public synchronized void recordFailure() {
+    recordFailure(0L);
+  }
+
+  /**
+   * Records a failed request. {@code retryAfterMs} is the server's {@code Retry-After}, or 0 when
+   * it sent none; no request is allowed before it has passed.
+   */
+  public synchronized void recordFailure(long retryAfterMs) {
+    long now = System.currentTimeMillis();
+    this.unchangedStreak = 0;
+    this.consecutiveFailures++;
+    if (retryAfterMs > 0) {
+      this.retryNotBefore = now + retryAfterMs;
+    }
+    if (this.state == State.HALF_OPEN || this.consecutiveFailures >= FAILURE_THRESHOLD) {
+      this.state = State.OPEN;
+      this.openUntil = now + jitter(this.maxBackoffMs, INTERVAL_JITTER);
+    }
+  }
+
+  /**
+   * Delay until the loop should fire again, based on everything recorded so far.
+   */
+  public synchronized long nextDelayMillis() {
+    long now = System.currentTimeMillis();
+    long delay;
+    if (this.state == State.OPEN) {
+      delay = Math.max(0L, this.openUntil - now);
+    } else if (this.consecutiveFailures > 0) {
+      long backoff = this.baseIntervalMs << Math.min(this.consecutiveFailures - 1, 16);
+      backoff = Math.min(this.maxBackoffMs, backoff);
+      delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    } else {
+      long interval = this.baseIntervalMs << Math.min(this.unchangedStreak / UNCHANGED_STEP, 16);
+      delay = jitter(Math.min(this.maxIdleIntervalMs, interval), INTERVAL_JITTER);
+    }
+    return Math.max(delay, this.retryNotBefore - now);
+  }
+
+  private static long jitter(long value, double fraction) {
+    long spread = (long) (value * fraction);
+    if (spread <= 0) {
+      return value;
+    }
+    return value - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1);
+  }
+}
@@ -0,0 +1,304 @@
+package net.craftportal.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache with a W-TinyLFU style eviction policy. New entries land in a small LRU
+ * window; when the window overflows its oldest entry only makes it into the main segment if it
+ * has been asked for more often than the entry it would push out, according to a small aging
+ * frequency sketch. The main segment is a segmented LRU, so entries with repeated hits are
+ * protected from one-off scans. Entries can optionally expire after not being accessed for a
+ * while. Hits, misses and evictions are counted.
+ */
+public final class BoundedCache<K, V> {
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final int maximumSize;
+  private final int windowMaximum;
+  private final int protectedMaximum;
+  private final long expireAfterAccessMs;
+  private final Map<K, Node<K, V>> nodes;
+  private final FrequencySketch sketch;
+
+  private final Node<K, V> window = Node.sentinel();
+  private final Node<K, V> probation = Node.sentinel();
+  private final Node<K, V> protectedSegment = Node.sentinel();
+  private int windowSize;
+  private int protectedSize;
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param maximumSize         maximum number of entries
+   * @param expireAfterAccessMs entries not read or written for this long are dropped; 0 disables
+   *                            expiry
+   */
+  public BoundedCache(int maximumSize, long expireAfterAccessMs) {
+    this.maximumSize = Math.max(2, maximumSize);
+    this.windowMaximum = Math.max(1, this.maximumSize / 100);
+    this.protectedMaximum = (this.maximumSize - this.windowMaximum) * 4 / 5;
+    this.expireAfterAccessMs = expireAfterAccessMs;
+    this.nodes = new HashMap<>(this.maximumSize * 2);
+    this.sketch = new FrequencySketch(this.maximumSize);
+  }
+
+  public synchronized V get(K key) {
+    this.sketch.increment(key.hashCode());
+    Node<K, V> node = this.nodes.get(key);
+    if (node == null) {
+      this.missCount++;
+      return null;
+    }
+    long now = now();
+    if (isExpired(node, now)) {
+      removeNode(node);
+      this.evictionCount++;
+      this.missCount++;
+      return null;
+    }
+    node.accessTime = now;
+    onHit(node);
+    this.hitCount++;
+    return node.value;
+  }
+
+  public synchronized void put(K key, V value) {
+    Node<K, V> node = this.nodes.get(key);
+    if (node != null) {
+      node.value = value;
+      node.accessTime = now();
+      onHit(node);
+      return;
+    }
+    node = new Node<>(key, value);
+    node.accessTime = now();
+    node.queue = WINDOW;
+    this.nodes.put(key, node);
+    node.linkBefore(this.window);
+    this.windowSize++;
+    evict();
+  }
+
+  /**
+   * Returns the cached value or computes, caches and returns a new one. The mapping function runs
+   * outside the cache lock and may therefore run more than once for the same key under contention.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    V value = get(key);
+    if (value != null) {
+      return value;
+    }
+    value = mappingFunction.apply(key);
+    if (value != null) {
+      put(key, value);
+    }
+    return value;
+  }
+
+  public synchronized void invalidateAll() {
+    this.nodes.clear();
+    this.window.unlinkAll();
+    this.probation.unlinkAll();
+    this.protectedSegment.unlinkAll();
+    this.windowSize = 0;
+    this.protectedSize = 0;
+  }
+
+  public synchronized int size() {
+    return this.nodes.size();
+  }
+
+  public synchronized long hitCount() {
+    return this.hitCount;
+  }
+
+  public synchronized long missCount() {
+    return this.missCount;
+  }
+
+  public synchronized long evictionCount() {
+    return this.evictionCount;
+  }
+
+  private void onHit(Node<K, V> node) {
+    switch (node.queue) {
+      case WINDOW:
+        node.moveBefore(this.window);
+        break;
+      case PROBATION:
+        node.unlink();
+        node.queue = PROTECTED;
+        node.linkBefore(this.protectedSegment);
+        this.protectedSize++;
+        while (this.protectedSize > this.protectedMaximum) {
+          Node<K, V> demoted = this.protectedSegment.next;
+          demoted.unlink();
+          demoted.queue = PROBATION;
+          demoted.linkBefore(this.probation);
+          this.protectedSize--;
+        }
+        break;
+      default:
+        node.moveBefore(this.protectedSegment);
+        break;
+    }
+  }
+
+  private void evict() {
+    while (this.windowSize > this.windowMaximum) {
+      Node<K, V> candidate = this.window.next;
+      candidate.unlink();
+      this.windowSize--;
+      candidate.queue = PROBATION;
+      candidate.linkBefore(this.probation);
+
+      if (this.nodes.size() <= this.maximumSize) {
+        continue;
+      }
+      Node<K, V> victim = this.probation.next;
+      if (victim == candidate) {
+        victim = this.protectedSegment.next;
+      }
+      if (isExpired(victim, now())
+          || this.sketch.frequency(candidate.key.hashCode())
+          > this.sketch.frequency(victim.key.hashCode())) {
+        removeNode(victim);
+      } else {
+        removeNode(candidate);
+      }
+      this.evictionCount++;
+    }
+  }
+
+  private void removeNode(Node<K, V> node) {
+    this.nodes.remove(node.key);
+    node.unlink();
+    if (node.queue == WINDOW) {
+      this.windowSize--;
+    } else if (node.queue == PROTECTED) {
+      this.protectedSize--;
+    }
+  }
+
+  private boolean isExpired(Node<K, V> node, long now) {
+    return this.expireAfterAccessMs > 0 && now - node.accessTime > this.expireAfterAccessMs;
+  }
+
+  private long now() {
+    return this.expireAfterAccessMs > 0 ? System.currentTimeMillis() : 0L;
+  }
+
+  private static final class Node<K, V> {
+
+    private final K key;
+    private V value;
+    private long accessTime;
+    private int queue;
+    private Node<K, V> prev;
+    private Node<K, V> next;
+
+    private Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    private static <K, V> Node<K, V> sentinel() {
+      Node<K, V> sentinel = new Node<>(null, null);
+      sentinel.prev = sentinel;
+      sentinel.next = sentinel;
+      return sentinel;
+    }
+
+    private void linkBefore(Node<K, V> sentinel) {
+      this.prev = sentinel.prev;
+      this.next = sentinel;
+      sentinel.prev.next = this;
+      sentinel.prev = this;
+    }
+
+    private void moveBefore(Node<K, V> sentinel) {
+      unlink();
+      linkBefore(sentinel);
+    }
+
+    private void unlink() {
+      this.prev.next = this.next;
+      this.next.prev = this.prev;
+      this.prev = null;
+      this.next = null;
+    }
+
+    private void unlinkAll() {
+      this.prev = this;
+      this.next = this;
+    }
+  }
+
+  /**
+   * Count-min sketch with four 4-bit counters per key, packed into longs. All counters are halved
+   * once ten times the cache size has been recorded, so old popularity fades.
+   */
+  private static final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    private FrequencySketch(int maximumSize) {
+      int length = Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1;
+      this.table = new long[Math.max(8, length / 4)];
+      this.tableMask = this.table.length - 1;
+      this.sampleSize = 10 * maximumSize;
+    }
+
+    private int frequency(int hash) {
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+        int index = indexOf(hash, i);
+        int offset = counterOffset(hash, i);
+        frequency = Math.min(frequency, (int) ((this.table[index] >>> offset) & 0xFL));
+      }
+      return frequency;
+    }
+
+    private void increment(int hash) {
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+        int index = indexOf(hash, i);
+        int offset = counterOffset(hash, i);
+        if (((this.table[index] >>> offset) & 0xFL) != 0xFL) {
+          this.table[index] += 1L << offset;
+          added = true;
+        }
+      }
+      if (added && ++this.additions >= this.sampleSize) {
+        for (int i = 0; i < this.table.length; i++) {
+          this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.additions >>>= 1;
+      }
+    }
+
+    private int indexOf(int hash, int row) {
+      long h = (hash + SEEDS[row]) * SEEDS[row];
+      h += h >>> 32;
+      return (int) h & this.tableMask;
+    }
+
+    private static int counterOffset(int hash, int row) {
+      return (((hash >>> (row << 3)) & 3) << 2) + (row << 4);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package net.craftportal.util;
+
+/**
+ * Stateless replacement for {@code NumberFormat.getNumberInstance(Locale.GERMAN)}: '.' as
+ * grouping separator, ',' as decimal separator and at most three fraction digits. Safe to use
+ * from any thread; {@link #append(StringBuilder, double)} does not allocate.
+ */
+public final class CurrencyFormatter {
+
+  private static final double MAX_EXACT = 9.0E15;
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+  private CurrencyFormatter() {
+  }
+
+  public static String format(String prefix, double value) {
+    StringBuilder builder = BUFFER.get();
+    builder.setLength(0);
+    builder.append(prefix);
+    append(builder, value);
+    return builder.toString();
+  }
+
+  public static StringBuilder append(StringBuilder out, double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_EXACT) {
+      return out.append(value);
+    }
+
+    long scaled = Math.round(Math.abs(value) * 1000.0);
+    if (scaled != 0 && value < 0) {
+      out.append('-');
+    }
+
+    appendGrouped(out, scaled / 1000);
+
+    int fraction = (int) (scaled % 1000);
+    if (fraction != 0) {
+      out.append(',');
+      int divisor = 100;
+      while (fraction != 0) {
+        out.append((char) ('0' + fraction / divisor));
+        fraction %= divisor;
+        divisor /= 10;
+      }
+    }
+    return out;
+  }
+
+  private static void appendGrouped(StringBuilder out, long value) {
+    long divisor = 1;
+    int digits = 1;
+    while (divisor <= value / 10) {
+      divisor *= 10;
+      digits++;
+    }
+
+    while (divisor > 0) {
+      out.append((char) ('0' + (value / divisor) % 10));
+      digits--;
+      if (digits > 0 && digits % 3 == 0) {
+        out.append('.');
+      }
+      divisor /= 10;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package net.craftportal.util;
+
+/**
+ * Turns material ids such as {@code DIAMOND_SWORD} into display names such as
+ * {@code Diamond Sword}.
+ */
+public final class ItemNames {
+
+  private ItemNames() {
+  }
+
+  public static String formatMaterialName(String material) {
+    StringBuilder builder = new StringBuilder(material.length());
+    boolean wordStart = true;
+    for (int i = 0, length = material.length(); i < length; i++) {
+      char c = material.charAt(i);
+      if (c == '_') {
+        if (builder.length() > 0 && !wordStart) {
+          builder.append(' ');
+        }
+        wordStart = true;
+      } else if (wordStart) {
+        builder.append(Character.toUpperCase(c));
+        wordStart = false;
+      } else {
+        builder.append(Character.toLowerCase(c));
+      }
+    }
+    return builder.toString();
+  }
+}
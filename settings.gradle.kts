@@ -21,3 +21,5 @@ plugins.apply("net.labymod.labygradle.settings")
 
 include(":api")
 include(":core")
+include(":benchmarks")
+include(":api-stub")